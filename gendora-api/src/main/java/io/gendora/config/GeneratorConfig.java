@@ -0,0 +1,420 @@
+package io.gendora.config;
+
+import io.gendora.services.BufferedSequenceGenerator;
+import io.gendora.services.DeferredIdQueue;
+import io.gendora.services.GeneratorClock;
+import io.gendora.services.GeneratorMetrics;
+import io.gendora.services.HighWaterMarkSequenceGenerator;
+import io.gendora.services.HighWaterMarkStore;
+import io.gendora.services.IDGeneratorService;
+import io.gendora.services.IdempotencyCache;
+import io.gendora.services.IdLayout;
+import io.gendora.services.LockFreeSequenceGenerator;
+import io.gendora.services.MappedFileHighWaterMarkStore;
+import io.gendora.services.NamespacedSequenceGenerator;
+import io.gendora.services.PerSlotSequenceGenerator;
+import io.gendora.services.RedisHighWaterMarkStore;
+import io.gendora.services.SequenceGenerator;
+import io.gendora.services.SlotCoordinator;
+import io.gendora.services.ShardedSequenceGenerator;
+import io.gendora.services.SynchronizedSequenceGenerator;
+import io.gendora.time.CachedTimeSource;
+import io.gendora.time.MonotonicTimeSource;
+import io.gendora.time.TimeSource;
+import io.gendora.time.WallClockTimeSource;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+@Configuration
+public class GeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneratorConfig.class);
+
+    @Value("${generator.mode:synchronized}")
+    private String generatorMode;
+
+    @Value("${generator.time-source:wall}")
+    private String timeSourceType;
+
+    @Value("${generator.time-source.tick-micros:500}")
+    private long tickMicros;
+
+    // How far generators may run ahead of the wall clock on sequence exhaustion, 0 always waits
+    @Value("${generator.max-clock-drift-ms:0}")
+    private long maxClockDriftMillis;
+
+    @Value("${generator.clock-backwards.policy:fail}")
+    private String clockBackwardsPolicy;
+
+    @Value("${generator.clock-backwards.max-ms:1000}")
+    private long maxClockBackwardsMillis;
+
+    // 0 picks one shard per available processor
+    @Value("${generator.shards:0}")
+    private int shardCount;
+
+    // Sequence bits set aside for namespaces with their own sequence state, 0 disables namespaces
+    @Value("${generator.namespaces.bits:0}")
+    private int namespaceBits;
+
+    @Value("${generator.namespaces.idle-ms:60000}")
+    private long namespaceIdleMillis;
+
+    // More than 1 lets the slot coordinator claim extra slots, each with a generator of its own
+    @Value("${slot.elastic.max-slots:1}")
+    private int maxSlots;
+
+    @Value("${generator.buffer.enabled:false}")
+    private boolean bufferEnabled;
+
+    @Value("${generator.buffer.capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${generator.buffer.low-watermark:2048}")
+    private int bufferLowWatermark;
+
+    @Value("${generator.buffer.max-staleness-ms:50}")
+    private long bufferMaxStalenessMillis;
+
+    @Value("${generator.high-water-mark.store:none}")
+    private String highWaterMarkStoreType;
+
+    @Value("${generator.high-water-mark.file:/tmp/gendora-high-water-marks}")
+    private String highWaterMarkFile;
+
+    @Value("${generator.high-water-mark.step-ms:1000}")
+    private long highWaterMarkStepMillis;
+
+    @Value("${generator.high-water-mark.max-wait-ms:5000}")
+    private long highWaterMarkMaxWaitMillis;
+
+    // Requests for single IDs parked rather than waiting for the next millisecond, 0 disables parking
+    @Value("${generator.async.max-pending:0}")
+    private int maxPendingRequests;
+
+    @Value("${generator.async.timeout-ms:1000}")
+    private long pendingRequestTimeoutMillis;
+
+    @Value("${generator.async.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    // Idempotency keys remembered with their IDs, 0 ignores Idempotency-Key headers
+    @Value("${generator.idempotency.max-keys:100000}")
+    private int maxIdempotencyKeys;
+
+    @Value("${generator.idempotency.ttl-ms:60000}")
+    private long idempotencyTtlMillis;
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    @Bean
+    public TimeSource timeSource() {
+        TimeSource timeSource = switch (timeSourceType) {
+            case "wall" -> new WallClockTimeSource();
+            case "monotonic" -> new MonotonicTimeSource();
+            case "cached" -> new CachedTimeSource(new WallClockTimeSource(), tickMicros);
+            default -> throw new IllegalArgumentException("Unknown time source: " + timeSourceType +
+                    " (expected one of: wall, monotonic, cached)");
+        };
+
+        logger.info("Using {} time source", timeSourceType);
+        return timeSource;
+    }
+
+    @Bean
+    public GeneratorClock generatorClock(TimeSource timeSource, MeterRegistry meterRegistry) {
+        GeneratorClock.BackwardsPolicy backwardsPolicy =
+                GeneratorClock.BackwardsPolicy.valueOf(clockBackwardsPolicy.toUpperCase(Locale.ROOT));
+
+        logger.info("Generator clock allows {} ms of drift and handles clock steps backwards of up to {} ms with policy {}",
+                maxClockDriftMillis, maxClockBackwardsMillis, backwardsPolicy);
+        return new GeneratorClock(timeSource, maxClockDriftMillis, backwardsPolicy, maxClockBackwardsMillis,
+                generatorMetrics(meterRegistry));
+    }
+
+    private GeneratorMetrics generatorMetrics(MeterRegistry meterRegistry) {
+        DistributionSummary idsPerMillisecond = DistributionSummary.builder("generator.ids.per-millisecond")
+                .description("IDs handed out per millisecond and sequence state, recorded when a generator moves on")
+                .baseUnit("ids")
+                .serviceLevelObjectives(idsPerMillisecondBuckets())
+                .register(meterRegistry);
+        GeneratorMetrics generatorMetrics = new GeneratorMetrics(idsPerMillisecond::record);
+
+        FunctionCounter.builder("generator.sequence.overflows", generatorMetrics,
+                        GeneratorMetrics::getSequenceOverflowCount)
+                .description("Times a caller found the sequence space of the current millisecond exhausted")
+                .register(meterRegistry);
+        FunctionTimer.builder("generator.sequence.overflow.wait", generatorMetrics,
+                        GeneratorMetrics::getOverflowWaitCount,
+                        GeneratorMetrics::getOverflowWaitNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for the next millisecond after a sequence overflow")
+                .register(meterRegistry);
+        Gauge.builder("generator.sequence.overflow.wait.max", generatorMetrics,
+                        metrics -> metrics.getMaxOverflowWaitNanos() / 1e9)
+                .description("Longest wait for the next millisecond after a sequence overflow")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.clock.backwards", generatorMetrics,
+                        GeneratorMetrics::getClockBackwardsCount)
+                .description("Clock reads that found the clock behind the last used timestamp beyond the drift budget")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.clock.backwards.magnitude", generatorMetrics,
+                        GeneratorMetrics::getClockBackwardsMillis)
+                .description("Sum of how far the clock was behind on those reads")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("generator.clock.backwards.max", generatorMetrics, GeneratorMetrics::getMaxClockBackwardsMillis)
+                .description("Furthest the clock was found behind the last used timestamp")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        return generatorMetrics;
+    }
+
+    // Powers of two up to the sequence space of a millisecond, plus one bucket just below it
+    private static double[] idsPerMillisecondBuckets() {
+        long sequenceSpace = IdLayout.active().maxSequenceId() + 1;
+        List<Double> buckets = new ArrayList<>();
+        for (long bucket = 1; bucket < sequenceSpace; bucket <<= 2) {
+            buckets.add((double) bucket);
+        }
+        buckets.add((double) sequenceSpace - 1);
+        buckets.add((double) sequenceSpace);
+        return buckets.stream().distinct().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    @Bean
+    public SequenceGenerator sequenceGenerator(GeneratorClock generatorClock, MeterRegistry meterRegistry,
+                                               ObjectProvider<RedisCommands<String, String>> redis,
+                                               ObjectProvider<SlotCoordinator> slotCoordinator) throws IOException {
+        if (maxSlots > 1 && bufferEnabled) {
+            throw new IllegalArgumentException("generator.buffer.enabled cannot be combined with slot.elastic.max-slots "
+                    + maxSlots + ": the buffer is filled for a single slot");
+        }
+
+        SequenceGenerator sequenceGenerator;
+        if (namespaceBits > 0) {
+            // Namespaces need a sequence state per namespace, which replaces the generator mode
+            sequenceGenerator = namespacedSequenceGenerator(generatorClock, meterRegistry);
+        } else {
+            sequenceGenerator = switch (generatorMode) {
+                case "synchronized" -> perSlot(() -> new SynchronizedSequenceGenerator(generatorClock));
+                case "lock-free" -> perSlot(() -> new LockFreeSequenceGenerator(generatorClock));
+                case "sharded" -> shardedSequenceGenerator(generatorClock, meterRegistry);
+                default -> throw new IllegalArgumentException("Unknown generator mode: " + generatorMode +
+                        " (expected one of: synchronized, lock-free, sharded)");
+            };
+
+            logger.info("Using {} sequence generator", generatorMode);
+        }
+
+        if (!highWaterMarkStoreType.equals("none")) {
+            sequenceGenerator = highWaterMarkSequenceGenerator(sequenceGenerator, generatorClock, redis, slotCoordinator,
+                    meterRegistry);
+        }
+        if (bufferEnabled) {
+            return bufferedSequenceGenerator(sequenceGenerator, generatorClock, meterRegistry);
+        }
+        return sequenceGenerator;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("${generator.async.max-pending:0} > 0")
+    public DeferredIdQueue deferredIdQueue(IDGeneratorService idGeneratorService, MeterRegistry meterRegistry) {
+        DeferredIdQueue deferredIdQueue = new DeferredIdQueue(idGeneratorService, maxPendingRequests,
+                pendingRequestTimeoutMillis, retryAfterSeconds);
+
+        Gauge.builder("generator.async.pending", deferredIdQueue, DeferredIdQueue::getPendingCount)
+                .description("Requests parked until the next millisecond opens")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.async.deferred", deferredIdQueue, DeferredIdQueue::getDeferredCount)
+                .description("Requests parked because the sequence space of the current millisecond was exhausted")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.async.rejected", deferredIdQueue, DeferredIdQueue::getRejectedCount)
+                .description("Requests rejected with 429 because the maximum number of requests was parked")
+                .register(meterRegistry);
+
+        logger.info("Parking up to {} requests on sequence exhaustion for up to {} ms",
+                maxPendingRequests, pendingRequestTimeoutMillis);
+        return deferredIdQueue;
+    }
+
+    @Bean
+    @ConditionalOnExpression("${generator.idempotency.max-keys:100000} > 0")
+    public IdempotencyCache idempotencyCache(MeterRegistry meterRegistry) {
+        IdempotencyCache idempotencyCache = new IdempotencyCache(maxIdempotencyKeys, idempotencyTtlMillis);
+
+        FunctionCounter.builder("generator.idempotency.hits", idempotencyCache, IdempotencyCache::getHitCount)
+                .description("Requests with an idempotency key that got the IDs remembered for it")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.idempotency.misses", idempotencyCache, IdempotencyCache::getMissCount)
+                .description("Requests with an idempotency key that generated new IDs")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.idempotency.evictions", idempotencyCache, IdempotencyCache::getEvictionCount)
+                .description("Idempotency keys forgotten, after their TTL or to stay within the maximum number of keys")
+                .register(meterRegistry);
+        Gauge.builder("generator.idempotency.keys", idempotencyCache, IdempotencyCache::getSize)
+                .description("Idempotency keys currently remembered")
+                .register(meterRegistry);
+
+        logger.info("Remembering the IDs of up to {} idempotency keys for {} ms", maxIdempotencyKeys, idempotencyTtlMillis);
+        return idempotencyCache;
+    }
+
+    private BufferedSequenceGenerator bufferedSequenceGenerator(SequenceGenerator sequenceGenerator,
+                                                                GeneratorClock generatorClock,
+                                                                MeterRegistry meterRegistry) {
+        BufferedSequenceGenerator bufferedSequenceGenerator = new BufferedSequenceGenerator(
+                sequenceGenerator, generatorClock, bufferCapacity, bufferLowWatermark, bufferMaxStalenessMillis);
+
+        Gauge.builder("generator.buffer.fill", bufferedSequenceGenerator, BufferedSequenceGenerator::getFillLevel)
+                .description("Number of pre-generated IDs in the buffer")
+                .register(meterRegistry);
+        Gauge.builder("generator.buffer.capacity", bufferedSequenceGenerator, BufferedSequenceGenerator::getCapacity)
+                .description("Maximum number of pre-generated IDs in the buffer")
+                .register(meterRegistry);
+        FunctionTimer.builder("generator.buffer.refill", bufferedSequenceGenerator,
+                        BufferedSequenceGenerator::getRefillCount,
+                        BufferedSequenceGenerator::getRefillNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Time taken to top up the buffer")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.buffer.misses", bufferedSequenceGenerator,
+                        BufferedSequenceGenerator::getMissCount)
+                .description("Requests that found the buffer empty and generated their ID inline")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.buffer.discarded", bufferedSequenceGenerator,
+                        BufferedSequenceGenerator::getDiscardedCount)
+                .description("Buffered IDs discarded for being older than the maximum staleness")
+                .register(meterRegistry);
+
+        logger.info("Buffering up to {} IDs, refilled at {} and discarded after {} ms",
+                bufferCapacity, bufferLowWatermark, bufferMaxStalenessMillis);
+        return bufferedSequenceGenerator;
+    }
+
+    private HighWaterMarkSequenceGenerator highWaterMarkSequenceGenerator(SequenceGenerator sequenceGenerator,
+                                                                          GeneratorClock generatorClock,
+                                                                          ObjectProvider<RedisCommands<String, String>> redis,
+                                                                          ObjectProvider<SlotCoordinator> slotCoordinator,
+                                                                          MeterRegistry meterRegistry) throws IOException {
+        HighWaterMarkStore highWaterMarkStore = switch (highWaterMarkStoreType) {
+            case "file" -> new MappedFileHighWaterMarkStore(Path.of(highWaterMarkFile));
+            case "redis" -> new RedisHighWaterMarkStore(redis.getObject(), applicationName);
+            default -> throw new IllegalArgumentException("Unknown high-water mark store: " + highWaterMarkStoreType +
+                    " (expected one of: none, file, redis)");
+        };
+        HighWaterMarkSequenceGenerator highWaterMarkSequenceGenerator = new HighWaterMarkSequenceGenerator(
+                sequenceGenerator, generatorClock, highWaterMarkStore, highWaterMarkStepMillis, highWaterMarkMaxWaitMillis,
+                // Looked up when the writer first runs, the coordinator is not needed to build the generator
+                slot -> slotCoordinator.getObject().holdsSlot(slot));
+
+        Gauge.builder("generator.high-water-mark", highWaterMarkSequenceGenerator,
+                        HighWaterMarkSequenceGenerator::getReservedUntil)
+                .description("Persisted timestamp up to which IDs may be handed out")
+                .register(meterRegistry);
+
+        logger.info("Persisting the high-water mark in the {} store, {} ms ahead, waiting up to {} ms for the clock to reach it",
+                highWaterMarkStoreType, highWaterMarkStepMillis, highWaterMarkMaxWaitMillis);
+        return highWaterMarkSequenceGenerator;
+    }
+
+    private SequenceGenerator namespacedSequenceGenerator(GeneratorClock generatorClock, MeterRegistry meterRegistry) {
+        SequenceGenerator sequenceGenerator =
+                perSlot(() -> new NamespacedSequenceGenerator(namespaceBits, namespaceIdleMillis, generatorClock));
+        int capacity = (1 << namespaceBits) - 1;
+
+        Gauge.builder("generator.namespaces.active", sequenceGenerator,
+                        generator -> sum(generator, NamespacedSequenceGenerator::getNamespaceCount))
+                .description("Namespaces that currently have a sequence space of their own")
+                .register(meterRegistry);
+        Gauge.builder("generator.namespaces.capacity", sequenceGenerator,
+                        generator -> sum(generator, NamespacedSequenceGenerator::getCapacity))
+                .description("Namespaces that can have a sequence space of their own at the same time")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.namespaces.evictions", sequenceGenerator,
+                        generator -> sum(generator, NamespacedSequenceGenerator::getEvictionCount))
+                .description("Times an idle namespace lost its sequence space to a new one")
+                .register(meterRegistry);
+        FunctionCounter.builder("generator.namespaces.overflows", sequenceGenerator,
+                        generator -> sum(generator, NamespacedSequenceGenerator::getOverflowCount))
+                .description("IDs of a namespace handed out from the shared space because all spaces were in use")
+                .register(meterRegistry);
+        for (int space = 0; space <= capacity; space++) {
+            int spaceIndex = space;
+            FunctionCounter.builder("generator.namespaces.exhaustions", sequenceGenerator,
+                            generator -> sum(generator,
+                                    (NamespacedSequenceGenerator namespaced) -> namespaced.getExhaustionCount(spaceIndex)))
+                    .tag("space", Integer.toString(space))
+                    .description("Times a caller found the space's sequence space exhausted for the current millisecond")
+                    .register(meterRegistry);
+        }
+
+        logger.info("Namespaced sequence generator keeps up to {} namespaces per slot, released after {} ms idle",
+                capacity, namespaceIdleMillis);
+        return sequenceGenerator;
+    }
+
+    private SequenceGenerator shardedSequenceGenerator(GeneratorClock generatorClock, MeterRegistry meterRegistry) {
+        int shards = shardCount == 0 ? ShardedSequenceGenerator.defaultShardCount() : shardCount;
+        SequenceGenerator sequenceGenerator = perSlot(() -> new ShardedSequenceGenerator(shards, generatorClock));
+
+        for (int shard = 0; shard < shards; shard++) {
+            int shardIndex = shard;
+            FunctionCounter.builder("generator.shard.exhaustions", sequenceGenerator,
+                            generator -> sum(generator,
+                                    (ShardedSequenceGenerator sharded) -> sharded.getExhaustionCount(shardIndex)))
+                    .tag("shard", Integer.toString(shard))
+                    .description("Times a caller found the shard's sequence space exhausted for the current millisecond")
+                    .register(meterRegistry);
+        }
+
+        logger.info("Sharded sequence generator uses {} shards", shards);
+        return sequenceGenerator;
+    }
+
+    /**
+     * A generator per slot when the instance may hold several slots, otherwise a single one.
+     */
+    private SequenceGenerator perSlot(Supplier<? extends SequenceGenerator> factory) {
+        if (maxSlots > 1) {
+            logger.info("Keeping a sequence generator per slot for up to {} slots", maxSlots);
+            return new PerSlotSequenceGenerator<>(factory);
+        }
+        return factory.get();
+    }
+
+    /**
+     * Sums a metric over the generators of all slots, see {@link #perSlot(Supplier)}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <G extends SequenceGenerator> double sum(SequenceGenerator sequenceGenerator,
+                                                            ToLongFunction<G> metric) {
+        if (sequenceGenerator instanceof PerSlotSequenceGenerator<?> perSlot) {
+            return perSlot.getGenerators().stream().mapToLong(generator -> metric.applyAsLong((G) generator)).sum();
+        }
+        return metric.applyAsLong((G) sequenceGenerator);
+    }
+}
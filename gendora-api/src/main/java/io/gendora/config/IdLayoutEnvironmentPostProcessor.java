@@ -0,0 +1,19 @@
+package io.gendora.config;
+
+import io.gendora.services.IdLayout;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * Fixes the ID layout from {@code generator.layout} before any bean is created, since the
+ * generators and decoder read it into static constants when their classes are first loaded. An
+ * invalid layout fails startup here.
+ */
+public class IdLayoutEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        IdLayout.configure(environment.getProperty(IdLayout.PROPERTY, "default"));
+    }
+}
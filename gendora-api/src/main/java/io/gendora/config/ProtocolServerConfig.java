@@ -0,0 +1,47 @@
+package io.gendora.config;
+
+import io.gendora.protocol.IdProtocolServer;
+import io.gendora.services.IDGeneratorService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+@Configuration
+public class ProtocolServerConfig {
+
+    @Value("${protocol.tcp.enabled:false}")
+    private boolean tcpEnabled;
+
+    @Value("${protocol.tcp.host:0.0.0.0}")
+    private String tcpHost;
+
+    @Value("${protocol.tcp.port:9090}")
+    private int tcpPort;
+
+    @Value("${protocol.unix.enabled:false}")
+    private boolean unixEnabled;
+
+    @Value("${protocol.unix.path:/tmp/gendora.sock}")
+    private String unixPath;
+
+    @Value("${generator.max-batch-size:10000}")
+    private int maxBatchSize;
+
+    @Bean(destroyMethod = "close")
+    public IdProtocolServer idProtocolServer(IDGeneratorService idGeneratorService) throws IOException {
+        IdProtocolServer idProtocolServer = new IdProtocolServer(idGeneratorService, maxBatchSize);
+
+        if (tcpEnabled) {
+            idProtocolServer.bindTcp(new InetSocketAddress(tcpHost, tcpPort));
+        }
+        if (unixEnabled) {
+            idProtocolServer.bindUnix(Path.of(unixPath));
+        }
+
+        return idProtocolServer;
+    }
+}
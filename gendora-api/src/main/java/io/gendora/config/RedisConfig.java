@@ -1,19 +1,29 @@
 package io.gendora.config;
 
+import io.gendora.services.RedisSlotCoordinator;
+import io.gendora.services.SlotCoordinator;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@ConditionalOnProperty(name = "slot.coordinator", havingValue = "redis", matchIfMissing = true)
 public class RedisConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(RedisConfig.class);
@@ -50,6 +60,39 @@ public class RedisConfig {
         return redisConnection.sync();
     }
 
+    /**
+     * Looks the coordinator up as a {@link SlotCoordinator}, since tests may replace it with one
+     * that does not lease slots from Redis, which then has no lease metrics.
+     */
+    @Bean
+    public MeterBinder slotLeaseMetrics(ObjectProvider<SlotCoordinator> slotCoordinatorProvider) {
+        return meterRegistry -> {
+            if (!(slotCoordinatorProvider.getIfAvailable() instanceof RedisSlotCoordinator slotCoordinator)) {
+                return;
+            }
+            FunctionTimer.builder("slot.lease.renewal", slotCoordinator,
+                            RedisSlotCoordinator::getRenewalCount,
+                            RedisSlotCoordinator::getRenewalNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("Round-trip time of lease renewals answered by Redis")
+                    .register(meterRegistry);
+            FunctionCounter.builder("slot.lease.renewal.failures", slotCoordinator,
+                            RedisSlotCoordinator::getRenewalFailureCount)
+                    .description("Lease renewals that failed to reach Redis")
+                    .register(meterRegistry);
+            FunctionCounter.builder("slot.lease.losses", slotCoordinator, RedisSlotCoordinator::getLeaseLossCount)
+                    .description("Renewals that found the lease gone or taken over")
+                    .register(meterRegistry);
+            Gauge.builder("slot.held", slotCoordinator, RedisSlotCoordinator::getSlotCount)
+                    .description("Slots IDs are currently spread across, including extra slots")
+                    .register(meterRegistry);
+            Gauge.builder("slot.lease.remaining", slotCoordinator, RedisSlotCoordinator::getLeaseRemainingSeconds)
+                    .description("Time until the slot stops being handed out unless the lease is renewed")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        };
+    }
+
     @PreDestroy
     public void destroy() {
         logger.info("Closing Redis connections...");
@@ -0,0 +1,36 @@
+package io.gendora.controllers;
+
+/**
+ * Writes numbers as ASCII digits straight into a byte buffer, without going through a String.
+ */
+final class AsciiEncoder {
+
+    static final int MAX_LONG_DIGITS = 19;
+
+    private AsciiEncoder() {
+    }
+
+    /**
+     * Writes the decimal digits of a non-negative value at the given offset and returns the
+     * offset right after the last digit.
+     */
+    static int writeLong(long value, byte[] buffer, int offset) {
+        int end = offset + digits(value);
+        int position = end;
+        do {
+            buffer[--position] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        return end;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        long bound = 10;
+        while (digits < MAX_LONG_DIGITS && value >= bound) {
+            digits++;
+            bound *= 10;
+        }
+        return digits;
+    }
+}
@@ -1,40 +1,305 @@
 package io.gendora.controllers;
 
 import com.google.common.collect.ImmutableMap;
+import io.gendora.services.ClockMovedBackwardsException;
+import io.gendora.services.DecodedIds;
+import io.gendora.services.DeferredIdQueue;
 import io.gendora.services.IDGeneratorService;
+import io.gendora.services.IdempotencyCache;
+import io.gendora.services.IdempotencyKeyReusedException;
+import io.gendora.services.IdDecoder;
+import io.gendora.services.IdLayout;
+import io.gendora.services.TooManyPendingRequestsException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/generator")
 public class GeneratorController {
 
     private final IDGeneratorService idGeneratorService;
+    // Only present with generator.async.max-pending above 0
+    private final DeferredIdQueue deferredIdQueue;
+    // Only present with generator.idempotency.max-keys above 0
+    private final IdempotencyCache idempotencyCache;
+    private final long maxStreamSize;
+    // Each stream can take the whole sequence space of its slot while it runs
+    private final int maxConcurrentStreams;
+    private final Semaphore streamPermits;
+    private final int maxDecodeSize;
 
     @Autowired
-    public GeneratorController(IDGeneratorService idGeneratorService) {
+    public GeneratorController(IDGeneratorService idGeneratorService,
+                               ObjectProvider<DeferredIdQueue> deferredIdQueue,
+                               ObjectProvider<IdempotencyCache> idempotencyCache,
+                               @Value("${generator.max-stream-size:100000000}") long maxStreamSize,
+                               @Value("${generator.max-concurrent-streams:2}") int maxConcurrentStreams,
+                               @Value("${generator.max-decode-size:100000}") int maxDecodeSize) {
         this.idGeneratorService = idGeneratorService;
+        this.deferredIdQueue = deferredIdQueue.getIfAvailable();
+        this.idempotencyCache = idempotencyCache.getIfAvailable();
+        this.maxStreamSize = maxStreamSize;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.streamPermits = new Semaphore(maxConcurrentStreams);
+        this.maxDecodeSize = maxDecodeSize;
     }
 
+    /**
+     * Serves an ID, with a {@code namespace} from that namespace's own sequence space.
+     *
+     * <p>The response has one of two forms, depending on whether the ID is there right away:
+     * <ul>
+     *   <li>An ID generated on the request thread is written to the response by
+     *       {@link #writeIdResponse}, and the method returns {@code null}. Spring MVC then treats
+     *       the response as handled. This skips building a map for Jackson and starting async
+     *       processing for every request.</li>
+     *   <li>With a {@link DeferredIdQueue}, a request that would wait for the next millisecond is
+     *       parked instead and its request thread returned to the pool. The method returns a future
+     *       of the response, completed by {@link #idResponse} once the ID is there.</li>
+     * </ul>
+     *
+     * <p>With an {@code Idempotency-Key} and an {@link IdempotencyCache}, a request repeating the
+     * key gets the ID of the first request with it. Such requests are not parked.
+     *
+     * @return {@code null} if the ID was written to {@code response}, or the future of a parked
+     * request's response
+     */
     @PostMapping("/ids")
-    public ResponseEntity<Map<String, Object>> generateID(
-            @RequestParam(value = "include_metadata", defaultValue = "false") boolean includeMetadata) {
-        long id = idGeneratorService.generateId();
-        
-        if (includeMetadata) {
-            Map<String, Object> metadata = idGeneratorService.getMetadata(id);
-            return ResponseEntity.ok(ImmutableMap.of(
-                "id", Long.toString(id),
-                "metadata", metadata
-            ));
+    public CompletableFuture<ResponseEntity<byte[]>> generateID(
+            @RequestParam(value = "include_metadata", defaultValue = "false") boolean includeMetadata,
+            @RequestParam(value = "namespace", required = false) String namespace,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletResponse response) throws IOException {
+        long id;
+        if (idempotencyKey != null && idempotencyCache != null) {
+            id = idempotencyCache.getOrGenerate(idempotencyKey, namespace, 1,
+                    () -> new long[] { generateId(namespace) })[0];
+        } else if (deferredIdQueue == null) {
+            id = generateId(namespace);
         } else {
-            return ResponseEntity.ok(ImmutableMap.of("id", Long.toString(id)));
+            id = deferredIdQueue.tryGenerateId(namespace);
+            if (id == DeferredIdQueue.NO_ID) {
+                return deferredIdQueue.defer(namespace)
+                        .thenApply(deferredId -> idResponse(deferredId, includeMetadata));
+            }
         }
+
+        writeIdResponse(response, id, includeMetadata);
+        return null;
+    }
+
+    private long generateId(String namespace) {
+        return namespace == null ? idGeneratorService.generateId() : idGeneratorService.generateId(namespace);
+    }
+
+    /**
+     * Writes the response body straight from the request thread's buffer, see
+     * {@link IdResponseEncoder}.
+     */
+    private void writeIdResponse(HttpServletResponse response, long id, boolean includeMetadata) throws IOException {
+        IdResponseEncoder encoder = IdResponseEncoder.forCurrentThread();
+        int length = encodeId(encoder, id, includeMetadata);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(length);
+        response.getOutputStream().write(encoder.buffer(), 0, length);
+    }
+
+    /**
+     * The same body as {@link #writeIdResponse}, copied out of the buffer since Spring MVC writes
+     * it after the completer thread moved on to the next ID.
+     */
+    private ResponseEntity<byte[]> idResponse(long id, boolean includeMetadata) {
+        // Runs on the completer thread, which has an encoder of its own
+        IdResponseEncoder encoder = IdResponseEncoder.forCurrentThread();
+        int length = encodeId(encoder, id, includeMetadata);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Arrays.copyOf(encoder.buffer(), length));
+    }
+
+    private int encodeId(IdResponseEncoder encoder, long id, boolean includeMetadata) {
+        if (!includeMetadata) {
+            return encoder.writeId(id);
+        }
+        return encoder.writeIdWithMetadata(id,
+                idGeneratorService.getTimestampDelta(id),
+                idGeneratorService.getEpoch(),
+                idGeneratorService.getDatacenterId(id),
+                idGeneratorService.getMachineId(id),
+                idGeneratorService.getSequenceId(id));
+    }
+
+    /**
+     * With an {@code Idempotency-Key} and an {@link IdempotencyCache}, a request repeating the key
+     * gets the IDs of the first request with it.
+     */
+    @PostMapping(value = "/ids", params = "count")
+    public ResponseEntity<Map<String, Object>> generateIDs(
+            @RequestParam("count") int count,
+            @RequestParam(value = "namespace", required = false) String namespace,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        long[] ids = idempotencyKey != null && idempotencyCache != null
+                ? idempotencyCache.getOrGenerate(idempotencyKey, namespace, count, () -> generateIds(count, namespace))
+                : generateIds(count, namespace);
+
+        List<String> encodedIds = Arrays.stream(ids).mapToObj(Long::toString).toList();
+        return ResponseEntity.ok(ImmutableMap.of("ids", encodedIds));
+    }
+
+    private long[] generateIds(int count, String namespace) {
+        return namespace == null
+                ? idGeneratorService.generateIds(count)
+                : idGeneratorService.generateIds(count, namespace);
+    }
+
+    @PostMapping("/ids/stream")
+    public ResponseEntity<StreamingResponseBody> streamIDs(
+            @RequestParam("count") long count,
+            @RequestParam(value = "format", defaultValue = "binary") String format) {
+        if (count < 1 || count > maxStreamSize) {
+            throw new IllegalArgumentException("Count must be between 1 and " + maxStreamSize + ": " + count);
+        }
+
+        IdStreamWriter.Format streamFormat;
+        try {
+            streamFormat = IdStreamWriter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format: " + format + " (expected one of: binary, text, ndjson)");
+        }
+
+        if (!streamPermits.tryAcquire()) {
+            throw new TooManyStreamsException(maxConcurrentStreams);
+        }
+        return ResponseEntity.ok()
+                .contentType(streamFormat.getMediaType())
+                .body(new IdStreamWriter(idGeneratorService, count, streamFormat, streamPermits::release));
+    }
+
+    @PostMapping("/ids/decode")
+    public ResponseEntity<Map<String, Object>> decodeIDs(@RequestBody Map<String, List<String>> request) {
+        List<String> encodedIds = request.get("ids");
+        if (encodedIds == null || encodedIds.isEmpty() || encodedIds.size() > maxDecodeSize) {
+            throw new IllegalArgumentException("Number of ids must be between 1 and " + maxDecodeSize + ": "
+                    + (encodedIds == null ? 0 : encodedIds.size()));
+        }
+
+        long[] ids = new long[encodedIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = parseId(encodedIds.get(i));
+        }
+
+        DecodedIds decodedIds = IdDecoder.decode(ids);
+        boolean withDatacenterId = IdLayout.active().datacenterIdBits() > 0;
+        List<Map<String, Object>> decoded = new ArrayList<>(decodedIds.size());
+        for (int i = 0; i < decodedIds.size(); i++) {
+            ImmutableMap.Builder<String, Object> fields = ImmutableMap.<String, Object>builder()
+                    .put("id", Long.toString(decodedIds.getId(i)))
+                    .put("timestamp", Long.toString(decodedIds.getTimestampMillis(i)))
+                    .put("timestampDelta", Long.toString(decodedIds.getTimestampDelta(i)));
+            if (withDatacenterId) {
+                fields.put("datacenterID", decodedIds.getDatacenterId(i));
+            }
+            decoded.add(fields
+                    .put("machineID", decodedIds.getMachineId(i))
+                    .put("sequenceID", decodedIds.getSequenceId(i))
+                    .build());
+        }
+        return ResponseEntity.ok(ImmutableMap.of("ids", decoded));
+    }
+
+    /**
+     * Returns the smallest and largest ID that can have been generated between {@code from} and
+     * {@code to} (inclusive, in milliseconds since the Unix epoch), to query stored IDs by time
+     * with a range scan.
+     */
+    @GetMapping("/ids/range")
+    public ResponseEntity<Map<String, Object>> idRange(@RequestParam("from") long from, @RequestParam("to") long to) {
+        IdDecoder.Range range = IdDecoder.range(from, to);
+        return ResponseEntity.ok(ImmutableMap.of(
+                "minId", Long.toString(range.minId()),
+                "maxId", Long.toString(range.maxId())
+        ));
+    }
+
+    private static long parseId(String encodedId) {
+        long id;
+        try {
+            id = Long.parseLong(encodedId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id: " + encodedId);
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("Invalid id: " + encodedId);
+        }
+        return id;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(ImmutableMap.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(ClockMovedBackwardsException.class)
+    public ResponseEntity<Map<String, Object>> handleClockMovedBackwards(ClockMovedBackwardsException e) {
+        long retryAfterSeconds = Math.max(1, (e.getBackwardsMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(ImmutableMap.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReused(IdempotencyKeyReusedException e) {
+        return ResponseEntity.unprocessableEntity().body(ImmutableMap.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(TooManyPendingRequestsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyPendingRequests(TooManyPendingRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(ImmutableMap.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(TooManyStreamsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyStreams(TooManyStreamsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ImmutableMap.of("error", e.getMessage()));
+    }
+
+    /**
+     * A parked request that did not get an ID within {@code generator.async.timeout-ms}.
+     */
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handleTimeout(TimeoutException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ImmutableMap.of("error", "Timed out waiting for the sequence space"));
     }
 }
@@ -0,0 +1,97 @@
+package io.gendora.controllers;
+
+import io.gendora.services.IdLayout;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes the single-ID JSON responses into a buffer reused by the current thread, so serving an
+ * ID allocates neither maps, strings nor boxed values. The output is byte-for-byte what Jackson
+ * writes for the equivalent maps: {@code {"id":"..."}} and, with metadata,
+ * {@code {"id":"...","metadata":{"timestampDelta":"...","epoch":"...","machineID":...,"sequenceID":...,"algorithm":"snowflake","layout":"..."}}},
+ * with a {@code "datacenterID"} before the machine ID if the ID layout has datacenter bits.
+ *
+ * <p>With virtual threads, every request runs on a fresh thread and therefore gets a fresh
+ * buffer, which still saves the maps and strings but not the buffer itself.
+ */
+final class IdResponseEncoder {
+
+    private static final byte[] ID_PREFIX = ascii("{\"id\":\"");
+    private static final byte[] ID_SUFFIX = ascii("\"}");
+    private static final byte[] TIMESTAMP_DELTA_PREFIX = ascii("\",\"metadata\":{\"timestampDelta\":\"");
+    private static final byte[] EPOCH_PREFIX = ascii("\",\"epoch\":\"");
+    private static final byte[] DATACENTER_ID_PREFIX = ascii("\",\"datacenterID\":");
+    private static final byte[] MACHINE_ID_AFTER_DATACENTER_ID_PREFIX = ascii(",\"machineID\":");
+    private static final byte[] MACHINE_ID_PREFIX = ascii("\",\"machineID\":");
+    private static final byte[] SEQUENCE_ID_PREFIX = ascii(",\"sequenceID\":");
+    // The layout is fixed for the lifetime of the process, so it is encoded once
+    private static final byte[] METADATA_SUFFIX =
+            ascii(",\"algorithm\":\"snowflake\",\"layout\":\"" + IdLayout.active() + "\"}}");
+    private static final boolean WITH_DATACENTER_ID = IdLayout.active().datacenterIdBits() > 0;
+
+    static final int BUFFER_SIZE = ID_PREFIX.length + TIMESTAMP_DELTA_PREFIX.length + EPOCH_PREFIX.length
+            + DATACENTER_ID_PREFIX.length + MACHINE_ID_AFTER_DATACENTER_ID_PREFIX.length
+            + SEQUENCE_ID_PREFIX.length + METADATA_SUFFIX.length
+            + 6 * AsciiEncoder.MAX_LONG_DIGITS;
+
+    private static final ThreadLocal<IdResponseEncoder> ENCODERS = ThreadLocal.withInitial(IdResponseEncoder::new);
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private IdResponseEncoder() {
+    }
+
+    static IdResponseEncoder forCurrentThread() {
+        return ENCODERS.get();
+    }
+
+    /**
+     * The buffer the last response was encoded into. Only valid on the encoding thread until its
+     * next call.
+     */
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Encodes {@code {"id":"<id>"}} and returns its length.
+     */
+    int writeId(long id) {
+        int position = put(ID_PREFIX, 0);
+        position = AsciiEncoder.writeLong(id, buffer, position);
+        return put(ID_SUFFIX, position);
+    }
+
+    /**
+     * Encodes the ID together with its metadata and returns its length.
+     */
+    int writeIdWithMetadata(long id, long timestampDelta, long epoch, long datacenterId, long machineId,
+                            long sequenceId) {
+        int position = put(ID_PREFIX, 0);
+        position = AsciiEncoder.writeLong(id, buffer, position);
+        position = put(TIMESTAMP_DELTA_PREFIX, position);
+        position = AsciiEncoder.writeLong(timestampDelta, buffer, position);
+        position = put(EPOCH_PREFIX, position);
+        position = AsciiEncoder.writeLong(epoch, buffer, position);
+        if (WITH_DATACENTER_ID) {
+            position = put(DATACENTER_ID_PREFIX, position);
+            position = AsciiEncoder.writeLong(datacenterId, buffer, position);
+            position = put(MACHINE_ID_AFTER_DATACENTER_ID_PREFIX, position);
+        } else {
+            position = put(MACHINE_ID_PREFIX, position);
+        }
+        position = AsciiEncoder.writeLong(machineId, buffer, position);
+        position = put(SEQUENCE_ID_PREFIX, position);
+        position = AsciiEncoder.writeLong(sequenceId, buffer, position);
+        return put(METADATA_SUFFIX, position);
+    }
+
+    private int put(byte[] bytes, int position) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,103 @@
+package io.gendora.controllers;
+
+import io.gendora.services.IDGeneratorService;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streams IDs to the client in fixed-size chunks as they are generated, so memory use does not
+ * depend on the number of IDs. Each chunk is flushed, which surfaces a client disconnect as an
+ * {@link IOException} and stops generation. {@code onFinished} runs once the stream ends, however it
+ * ends.
+ */
+class IdStreamWriter implements StreamingResponseBody {
+
+    static final int CHUNK_SIZE = 1024;
+
+    enum Format {
+        /** Big-endian 8-byte longs. */
+        BINARY(MediaType.APPLICATION_OCTET_STREAM, Long.BYTES),
+        /** One decimal ID per line. */
+        TEXT(MediaType.TEXT_PLAIN, AsciiEncoder.MAX_LONG_DIGITS + 1),
+        /** One JSON string per line, matching the ID encoding of the JSON endpoints. */
+        NDJSON(MediaType.parseMediaType(MediaType.APPLICATION_NDJSON_VALUE), AsciiEncoder.MAX_LONG_DIGITS + 3);
+
+        private final MediaType mediaType;
+        private final int maxBytesPerId;
+
+        Format(MediaType mediaType, int maxBytesPerId) {
+            this.mediaType = mediaType;
+            this.maxBytesPerId = maxBytesPerId;
+        }
+
+        MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    private final IDGeneratorService idGeneratorService;
+    private final long count;
+    private final Format format;
+    private final Runnable onFinished;
+
+    IdStreamWriter(IDGeneratorService idGeneratorService, long count, Format format, Runnable onFinished) {
+        this.idGeneratorService = idGeneratorService;
+        this.count = count;
+        this.format = format;
+        this.onFinished = onFinished;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try {
+            write(outputStream);
+        } finally {
+            onFinished.run();
+        }
+    }
+
+    private void write(OutputStream outputStream) throws IOException {
+        long[] ids = new long[CHUNK_SIZE];
+        byte[] buffer = new byte[CHUNK_SIZE * format.maxBytesPerId];
+
+        long remaining = count;
+        while (remaining > 0) {
+            if (remaining < CHUNK_SIZE) {
+                ids = new long[(int) remaining];
+            }
+
+            idGeneratorService.generateIds(ids);
+            outputStream.write(buffer, 0, encode(ids, buffer));
+            outputStream.flush();
+
+            remaining -= ids.length;
+        }
+    }
+
+    private int encode(long[] ids, byte[] buffer) {
+        int position = 0;
+        for (long id : ids) {
+            switch (format) {
+                case BINARY -> {
+                    for (int shift = 56; shift >= 0; shift -= 8) {
+                        buffer[position++] = (byte) (id >>> shift);
+                    }
+                }
+                case TEXT -> {
+                    position = AsciiEncoder.writeLong(id, buffer, position);
+                    buffer[position++] = '\n';
+                }
+                case NDJSON -> {
+                    buffer[position++] = '"';
+                    position = AsciiEncoder.writeLong(id, buffer, position);
+                    buffer[position++] = '"';
+                    buffer[position++] = '\n';
+                }
+            }
+        }
+        return position;
+    }
+}
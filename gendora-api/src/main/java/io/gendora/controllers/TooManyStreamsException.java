@@ -0,0 +1,12 @@
+package io.gendora.controllers;
+
+/**
+ * Thrown when a stream of IDs is requested while {@code generator.max-concurrent-streams} streams
+ * are running already.
+ */
+class TooManyStreamsException extends RuntimeException {
+
+    TooManyStreamsException(int maxConcurrentStreams) {
+        super("Already streaming IDs to " + maxConcurrentStreams + " clients, retry in 1 s", null, false, false);
+    }
+}
@@ -0,0 +1,198 @@
+package io.gendora.protocol;
+
+import io.gendora.services.IDGeneratorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves IDs over a minimal length-prefixed binary protocol on TCP and/or Unix domain sockets,
+ * bypassing the HTTP stack. All integers are big-endian.
+ *
+ * <pre>
+ * Request:  [count: int32]
+ * Response: [count: int32] [id: int64] * count
+ *           or [error: int32] with a negative error code
+ * </pre>
+ *
+ * Clients may pipeline requests; responses are written in request order. Every connection is
+ * served by its own thread, which processes all complete requests of a read before flushing
+ * their responses in one write.
+ */
+public class IdProtocolServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdProtocolServer.class);
+
+    public static final int ERROR_INVALID_COUNT = -1;
+    public static final int ERROR_UNAVAILABLE = -2;
+
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private final IDGeneratorService idGeneratorService;
+    private final int maxBatchSize;
+    private final ExecutorService executor;
+    private final List<ServerSocketChannel> serverChannels = new CopyOnWriteArrayList<>();
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final List<Path> socketFiles = new CopyOnWriteArrayList<>();
+
+    public IdProtocolServer(IDGeneratorService idGeneratorService, int maxBatchSize) {
+        this.idGeneratorService = idGeneratorService;
+        this.maxBatchSize = maxBatchSize;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "id-protocol-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SocketAddress bindTcp(SocketAddress address) throws IOException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.INET);
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address);
+        return listen(serverChannel);
+    }
+
+    public SocketAddress bindUnix(Path path) throws IOException {
+        // A socket file left behind by a previous process would make the bind fail
+        Files.deleteIfExists(path);
+
+        ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(path));
+        socketFiles.add(path);
+        return listen(serverChannel);
+    }
+
+    @Override
+    public void close() {
+        for (ServerSocketChannel serverChannel : serverChannels) {
+            closeQuietly(serverChannel);
+        }
+        for (SocketChannel connection : connections) {
+            closeQuietly(connection);
+        }
+        executor.shutdownNow();
+
+        for (Path socketFile : socketFiles) {
+            try {
+                Files.deleteIfExists(socketFile);
+            } catch (IOException e) {
+                logger.warn("Failed to delete socket file {}", socketFile, e);
+            }
+        }
+    }
+
+    private SocketAddress listen(ServerSocketChannel serverChannel) throws IOException {
+        serverChannels.add(serverChannel);
+        SocketAddress address = serverChannel.getLocalAddress();
+        executor.execute(() -> accept(serverChannel));
+        logger.info("ID protocol server listening on {}", address);
+        return address;
+    }
+
+    private void accept(ServerSocketChannel serverChannel) {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel connection = serverChannel.accept();
+                if (connection.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+                    connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                connections.add(connection);
+                executor.execute(() -> serve(connection));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                logger.warn("Failed to accept ID protocol connection", e);
+            }
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocate(responseSize(maxBatchSize));
+        long[] ids = new long[0];
+
+        try (connection) {
+            while (connection.read(in) >= 0) {
+                in.flip();
+                while (in.remaining() >= Integer.BYTES) {
+                    int count = in.getInt();
+                    if (out.remaining() < responseSize(count)) {
+                        flush(connection, out);
+                    }
+
+                    if (count < 1 || count > maxBatchSize) {
+                        out.putInt(ERROR_INVALID_COUNT);
+                        continue;
+                    }
+
+                    if (ids.length != count) {
+                        ids = new long[count];
+                    }
+                    try {
+                        idGeneratorService.generateIds(ids);
+                    } catch (RuntimeException e) {
+                        logger.warn("Failed to generate IDs for ID protocol request", e);
+                        out.putInt(ERROR_UNAVAILABLE);
+                        continue;
+                    }
+
+                    out.putInt(count);
+                    for (long id : ids) {
+                        out.putLong(id);
+                    }
+                }
+                in.compact();
+
+                // Everything that was pipelined in this read is answered in one write
+                flush(connection, out);
+            }
+        } catch (ClosedChannelException e) {
+            // Server shutting down
+        } catch (IOException e) {
+            logger.debug("ID protocol connection closed with error", e);
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private int responseSize(int count) {
+        return Integer.BYTES + Math.max(0, Math.min(count, maxBatchSize)) * Long.BYTES;
+    }
+
+    private static void flush(SocketChannel connection, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            connection.write(out);
+        }
+        out.clear();
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close channel", e);
+        }
+    }
+}
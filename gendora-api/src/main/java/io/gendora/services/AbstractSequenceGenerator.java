@@ -0,0 +1,34 @@
+package io.gendora.services;
+
+import static io.gendora.services.IDGeneratorService.EPOCH;
+import static io.gendora.services.IDGeneratorService.MACHINE_ID_SHIFT;
+import static io.gendora.services.IDGeneratorService.MAX_TIMESTAMP_DELTA;
+import static io.gendora.services.IDGeneratorService.TIMESTAMP_SHIFT;
+
+abstract class AbstractSequenceGenerator implements SequenceGenerator {
+
+    final GeneratorClock clock;
+
+    AbstractSequenceGenerator(GeneratorClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Reports the IDs handed out in a millisecond the generator moved on from, given the last
+     * sequence ID used in it.
+     */
+    final void millisecondCompleted(long lastSequenceID) {
+        clock.getMetrics().recordMillisecond(lastSequenceID + 1);
+    }
+
+    static long composeId(long timestamp, long machineId, long sequenceID) {
+        long timestampDelta = timestamp - EPOCH;
+        if (timestampDelta > MAX_TIMESTAMP_DELTA) {
+            throw new RuntimeException("Timestamp exceeds maximum value");
+        }
+
+        return (timestampDelta << TIMESTAMP_SHIFT) |
+               (machineId << MACHINE_ID_SHIFT) |
+                sequenceID;
+    }
+}
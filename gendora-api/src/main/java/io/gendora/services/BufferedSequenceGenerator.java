@@ -0,0 +1,296 @@
+package io.gendora.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.gendora.services.IDGeneratorService.EPOCH;
+import static io.gendora.services.IDGeneratorService.MACHINE_ID_SHIFT;
+import static io.gendora.services.IDGeneratorService.MAX_NODE_ID;
+import static io.gendora.services.IDGeneratorService.TIMESTAMP_SHIFT;
+
+/**
+ * Serves single IDs from a ring of IDs pre-generated by a background producer thread, so request
+ * threads only have to dequeue. The producer tops the ring up to its capacity using the delegate
+ * generator and is woken up early when the fill level drops to the low watermark. IDs that are
+ * older than the maximum staleness are discarded instead of handed out, so IDs stay roughly
+ * time-ordered. When the ring is empty, callers fall back to the delegate.
+ *
+ * <p>Once the producer discarded a whole ring's worth of stale IDs without any being claimed in
+ * between, nobody is asking for IDs, so it stops refilling rather than generating rings only to
+ * throw them away. It resumes as soon as a caller claims a buffered ID or finds the ring empty.
+ *
+ * <p>The ring has a single producer and many consumers: the producer writes a slot before
+ * publishing it by advancing the tail, and consumers claim slots by advancing the head with
+ * compare-and-set.
+ */
+public class BufferedSequenceGenerator implements SequenceGenerator, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BufferedSequenceGenerator.class);
+
+    private static final long PRODUCER_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long PRODUCER_ERROR_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int REFILL_CHUNK_SIZE = 256;
+
+    // Head and tail each get 128 bytes of the array to themselves, see ShardedSequenceGenerator
+    private static final int HEAD = 16;
+    private static final int TAIL = 32;
+
+    private final SequenceGenerator delegate;
+    private final GeneratorClock clock;
+    private final int capacity;
+    private final int mask;
+    private final int lowWatermark;
+    private final long maxStalenessMillis;
+
+    private final AtomicLongArray ring;
+    private final AtomicLongArray cursors = new AtomicLongArray(TAIL + 16);
+    private final long[] refillChunk = new long[REFILL_CHUNK_SIZE];
+
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    // Only written by the producer thread
+    private volatile long refills;
+    private volatile long refillNanos;
+
+    private final Thread producer;
+    private volatile boolean running = true;
+    private volatile long machineId = -1;
+
+    // Only accessed by the producer thread, to tell whether IDs were asked for since the last round
+    private long expectedHead;
+    private long expectedMisses;
+    private long producedFor = -1;
+    private long discardedSinceDemand;
+    private boolean paused;
+
+    public BufferedSequenceGenerator(SequenceGenerator delegate, GeneratorClock clock,
+                                     int capacity, int lowWatermark, long maxStalenessMillis) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Buffer capacity must be a power of two of at least 2: " + capacity);
+        }
+        if (lowWatermark < 0 || lowWatermark >= capacity) {
+            throw new IllegalArgumentException("Buffer low watermark must be between 0 and " + (capacity - 1) + ": " + lowWatermark);
+        }
+        if (maxStalenessMillis < 1) {
+            throw new IllegalArgumentException("Buffer maximum staleness must be at least 1 ms: " + maxStalenessMillis);
+        }
+
+        this.delegate = delegate;
+        this.clock = clock;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.lowWatermark = lowWatermark;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.ring = new AtomicLongArray(capacity);
+
+        this.producer = new Thread(this::produce, "id-buffer-producer");
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @Override
+    public long nextId(long machineId) {
+        if (machineId != this.machineId) {
+            // The producer only starts once it knows the machine ID, and starts over when it changes
+            this.machineId = machineId;
+            LockSupport.unpark(producer);
+            return delegate.nextId(machineId);
+        }
+
+        long oldestTimestamp = clock.currentTimeMillis() - maxStalenessMillis;
+        while (true) {
+            long head = cursors.get(HEAD);
+            long tail = cursors.get(TAIL);
+            if (head >= tail) {
+                misses.increment();
+                LockSupport.unpark(producer);
+                return delegate.nextId(machineId);
+            }
+
+            long id = ring.get((int) (head & mask));
+            if (!cursors.compareAndSet(HEAD, head, head + 1)) {
+                continue;
+            }
+
+            if (tail - head - 1 == lowWatermark) {
+                LockSupport.unpark(producer);
+            }
+
+            if (isUsable(id, machineId, oldestTimestamp)) {
+                return id;
+            }
+            discarded.increment();
+        }
+    }
+
+    @Override
+    public void nextIds(long machineId, long[] ids) {
+        // Batches already amortise the generation cost, so they bypass the buffer
+        delegate.nextIds(machineId, ids);
+    }
+
+    @Override
+    public long nextId(long machineId, String namespace) {
+        // The buffer only holds IDs without a namespace
+        return delegate.nextId(machineId, namespace);
+    }
+
+    @Override
+    public void nextIds(long machineId, String namespace, long[] ids) {
+        delegate.nextIds(machineId, namespace, ids);
+    }
+
+    /**
+     * Stops the producer, and closes the delegate if it holds resources itself.
+     */
+    @Override
+    public void close() throws Exception {
+        running = false;
+        LockSupport.unpark(producer);
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getFillLevel() {
+        return Math.max(0, cursors.get(TAIL) - cursors.get(HEAD));
+    }
+
+    /**
+     * Number of callers that found the buffer empty and generated their ID inline.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of buffered IDs thrown away because they were stale or minted for a previous machine ID.
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    public long getRefillCount() {
+        return refills;
+    }
+
+    public long getRefillNanos() {
+        return refillNanos;
+    }
+
+    private void produce() {
+        while (running) {
+            long machineId = this.machineId;
+            if (machineId >= 0) {
+                checkDemand(machineId);
+            }
+            if (machineId >= 0 && !paused) {
+                try {
+                    discardUnusable(machineId);
+                    if (!paused) {
+                        refill(machineId);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to refill ID buffer, retrying", e);
+                    LockSupport.parkNanos(PRODUCER_ERROR_BACKOFF_NANOS);
+                }
+            }
+
+            if (paused) {
+                // Until a miss, a claim down to the low watermark, a new machine ID or close()
+                LockSupport.park();
+            } else {
+                LockSupport.parkNanos(PRODUCER_INTERVAL_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Resumes refilling if callers claimed buffered IDs, missed the buffer or changed the machine
+     * ID since the last round. The head only moves by the producer's own discards otherwise.
+     */
+    private void checkDemand(long machineId) {
+        long head = cursors.get(HEAD);
+        long missCount = misses.sum();
+        if (head != expectedHead || missCount != expectedMisses || machineId != producedFor) {
+            if (paused) {
+                logger.debug("Resuming ID buffer refills");
+            }
+            paused = false;
+            discardedSinceDemand = 0;
+        }
+        expectedHead = head;
+        expectedMisses = missCount;
+        producedFor = machineId;
+    }
+
+    private void discardUnusable(long machineId) {
+        long oldestTimestamp = clock.currentTimeMillis() - maxStalenessMillis;
+        while (true) {
+            long head = cursors.get(HEAD);
+            if (head >= cursors.get(TAIL)) {
+                return;
+            }
+
+            long id = ring.get((int) (head & mask));
+            if (isUsable(id, machineId, oldestTimestamp)) {
+                // IDs are buffered in order, so everything behind the head is fresh too
+                return;
+            }
+            if (cursors.compareAndSet(HEAD, head, head + 1)) {
+                discarded.increment();
+                expectedHead++;
+                if (++discardedSinceDemand >= capacity) {
+                    logger.debug("Pausing ID buffer refills, {} IDs went stale without being asked for", capacity);
+                    paused = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    private void refill(long machineId) {
+        long tail = cursors.get(TAIL);
+        long free = capacity - (tail - cursors.get(HEAD));
+        if (free <= 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        while (free > 0 && running && machineId == this.machineId) {
+            int count;
+            if (free >= REFILL_CHUNK_SIZE) {
+                delegate.nextIds(machineId, refillChunk);
+                count = REFILL_CHUNK_SIZE;
+            } else {
+                refillChunk[0] = delegate.nextId(machineId);
+                count = 1;
+            }
+
+            for (int i = 0; i < count; i++) {
+                ring.set((int) ((tail + i) & mask), refillChunk[i]);
+            }
+            tail += count;
+            cursors.set(TAIL, tail);
+
+            free = capacity - (tail - cursors.get(HEAD));
+        }
+
+        refillNanos += System.nanoTime() - start;
+        refills++;
+    }
+
+    private static boolean isUsable(long id, long machineId, long oldestTimestamp) {
+        return ((id >>> TIMESTAMP_SHIFT) + EPOCH) >= oldestTimestamp &&
+                ((id >>> MACHINE_ID_SHIFT) & MAX_NODE_ID) == machineId;
+    }
+}
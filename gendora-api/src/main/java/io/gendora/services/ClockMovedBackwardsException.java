@@ -0,0 +1,15 @@
+package io.gendora.services;
+
+public class ClockMovedBackwardsException extends RuntimeException {
+
+    private final long backwardsMillis;
+
+    public ClockMovedBackwardsException(long backwardsMillis) {
+        super("Clock moved backwards. Refusing to generate id for " + backwardsMillis + " milliseconds");
+        this.backwardsMillis = backwardsMillis;
+    }
+
+    public long getBackwardsMillis() {
+        return backwardsMillis;
+    }
+}
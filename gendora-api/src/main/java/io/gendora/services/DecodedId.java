@@ -0,0 +1,14 @@
+package io.gendora.services;
+
+/**
+ * The fields of a single ID, see {@link IdDecoder}.
+ */
+public record DecodedId(long id, long timestampDelta, long datacenterId, long machineId, long sequenceId) {
+
+    /**
+     * The time the ID was generated at, in milliseconds since the Unix epoch.
+     */
+    public long timestampMillis() {
+        return IDGeneratorService.EPOCH + timestampDelta;
+    }
+}
@@ -0,0 +1,62 @@
+package io.gendora.services;
+
+/**
+ * The fields of a batch of IDs, held column-wise in primitive arrays so decoding a batch costs a
+ * fixed number of allocations regardless of its size. See {@link IdDecoder#decode(long[])}.
+ */
+public final class DecodedIds {
+
+    private final long[] ids;
+    private final long[] timestampDeltas;
+    private final int[] datacenterIds;
+    private final int[] machineIds;
+    private final int[] sequenceIds;
+
+    DecodedIds(long[] ids) {
+        this.ids = ids;
+        this.timestampDeltas = new long[ids.length];
+        this.datacenterIds = new int[ids.length];
+        this.machineIds = new int[ids.length];
+        this.sequenceIds = new int[ids.length];
+
+        for (int i = 0; i < ids.length; i++) {
+            timestampDeltas[i] = IdDecoder.timestampDelta(ids[i]);
+            datacenterIds[i] = (int) IdDecoder.datacenterId(ids[i]);
+            machineIds[i] = (int) IdDecoder.machineId(ids[i]);
+            sequenceIds[i] = (int) IdDecoder.sequenceId(ids[i]);
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public long getTimestampDelta(int index) {
+        return timestampDeltas[index];
+    }
+
+    public long getTimestampMillis(int index) {
+        return IDGeneratorService.EPOCH + timestampDeltas[index];
+    }
+
+    public int getDatacenterId(int index) {
+        return datacenterIds[index];
+    }
+
+    public int getMachineId(int index) {
+        return machineIds[index];
+    }
+
+    public int getSequenceId(int index) {
+        return sequenceIds[index];
+    }
+
+    public DecodedId get(int index) {
+        return new DecodedId(ids[index], timestampDeltas[index], datacenterIds[index], machineIds[index],
+                sequenceIds[index]);
+    }
+}
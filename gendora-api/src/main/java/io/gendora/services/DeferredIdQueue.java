@@ -0,0 +1,195 @@
+package io.gendora.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Parks requests for single IDs that found the sequence space of the current millisecond
+ * exhausted, instead of holding their request thread until the next millisecond opens. A single
+ * completer thread hands out their IDs in the order they were parked as new milliseconds open, so
+ * it is the only thread waiting for the clock. It waits outside the generator and then tries
+ * without waiting again, as generators may wait while holding their lock, which would hold up
+ * request threads trying for an ID in the meantime.
+ *
+ * <p>While requests are parked, new ones are parked behind them rather than overtaking them. At
+ * most {@code maxPending} requests are parked at a time, callers past that fail at once with a
+ * {@link TooManyPendingRequestsException}. Parked requests that did not get an ID within
+ * {@code timeoutMillis} fail with a {@link java.util.concurrent.TimeoutException}.
+ */
+public class DeferredIdQueue implements AutoCloseable {
+
+    /**
+     * Returned by {@link #tryGenerateId(String)} if the request has to be parked, never a valid ID.
+     */
+    public static final long NO_ID = -1;
+
+    // How often the completer tries again once the next millisecond is due
+    private static final long RETRY_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private record PendingRequest(String namespace, CompletableFuture<Long> result) {
+    }
+
+    private final IDGeneratorService idGeneratorService;
+    private final int maxPending;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final BlockingQueue<PendingRequest> pending;
+    // Parked requests not completed yet, including the one the completer took off the queue
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Thread completer;
+
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public DeferredIdQueue(IDGeneratorService idGeneratorService, int maxPending, long timeoutMillis,
+                           long retryAfterSeconds) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Maximum pending requests must be positive: " + maxPending);
+        }
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeoutMillis);
+        }
+        if (retryAfterSeconds < 1) {
+            throw new IllegalArgumentException("Retry-After must be at least 1 second: " + retryAfterSeconds);
+        }
+
+        this.idGeneratorService = idGeneratorService;
+        this.maxPending = maxPending;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.pending = new ArrayBlockingQueue<>(maxPending);
+        this.completer = Thread.ofPlatform().name("deferred-ids").daemon().start(this::complete);
+    }
+
+    /**
+     * Generates an ID on the calling thread if that needs no waiting for the next millisecond and
+     * no request is parked, otherwise returns {@link #NO_ID} for the caller to
+     * {@link #defer(String) park} the request.
+     */
+    public long tryGenerateId(String namespace) {
+        if (inFlight.get() > 0) {
+            return NO_ID;
+        }
+        try {
+            return idGeneratorService.generateIdWithoutWaiting(namespace);
+        } catch (SequenceExhaustedException e) {
+            return NO_ID;
+        }
+    }
+
+    /**
+     * Parks a request until the completer thread got an ID for it.
+     *
+     * @throws TooManyPendingRequestsException if the maximum number of requests is parked already
+     */
+    public CompletableFuture<Long> defer(String namespace) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        // Counted before it is queued, so requests arriving meanwhile already queue up behind it
+        inFlight.incrementAndGet();
+        if (!pending.offer(new PendingRequest(namespace, result))) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            throw new TooManyPendingRequestsException(maxPending, retryAfterSeconds);
+        }
+        deferred.increment();
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the completer thread and fails the requests still parked.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        completer.interrupt();
+        completer.join();
+
+        List<PendingRequest> remaining = new ArrayList<>();
+        pending.drainTo(remaining);
+        for (PendingRequest request : remaining) {
+            request.result().completeExceptionally(new IllegalStateException("Shutting down"));
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Number of requests currently parked, including the one the completer is getting an ID for.
+     */
+    public int getPendingCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Number of parked requests the completer has not taken up yet.
+     */
+    int getQueuedCount() {
+        return pending.size();
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Number of requests parked so far.
+     */
+    public long getDeferredCount() {
+        return deferred.sum();
+    }
+
+    /**
+     * Number of requests that failed at once because the maximum number was parked already.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void complete() {
+        while (true) {
+            PendingRequest request;
+            try {
+                request = pending.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (!serve(request)) {
+                    request.result().completeExceptionally(new IllegalStateException("Shutting down"));
+                    return;
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Gets an ID for the request once the generator has one without waiting, unless the request
+     * timed out meanwhile. Returns false if interrupted.
+     */
+    private boolean serve(PendingRequest request) {
+        // A request that timed out while parked is not worth an ID
+        while (!request.result().isDone()) {
+            try {
+                request.result().complete(idGeneratorService.generateIdWithoutWaiting(request.namespace()));
+                return true;
+            } catch (SequenceExhaustedException e) {
+                long waitNanos = TimeUnit.MILLISECONDS.toNanos(e.getWaitMillis() - 1);
+                LockSupport.parkNanos(Math.max(waitNanos, RETRY_INTERVAL_NANOS));
+                if (Thread.interrupted()) {
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                request.result().completeExceptionally(e);
+                return true;
+            }
+        }
+        return true;
+    }
+}
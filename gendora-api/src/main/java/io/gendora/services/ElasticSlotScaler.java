@@ -0,0 +1,122 @@
+package io.gendora.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Asks the {@link SlotCoordinator} for one more slot when callers keep exhausting the sequence
+ * space, and for one less once they stopped for a while, between 1 and
+ * {@code slot.elastic.max-slots} slots.
+ *
+ * <p>Exhaustion counts as sustained when every check within {@code slot.elastic.scale-up-after-ms}
+ * saw new sequence overflows. A slot is given back after {@code slot.elastic.cool-down-ms}
+ * without any, so short lulls do not make the instance give up slots it needs again right after.
+ */
+@Service
+public class ElasticSlotScaler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticSlotScaler.class);
+    private static final long NOT_EXHAUSTED = -1;
+
+    @Value("${slot.elastic.max-slots:1}")
+    private int maxSlots;
+
+    @Value("${slot.elastic.check-interval-ms:1000}")
+    private long checkIntervalMillis;
+
+    @Value("${slot.elastic.scale-up-after-ms:5000}")
+    private long scaleUpAfterMillis;
+
+    @Value("${slot.elastic.cool-down-ms:300000}")
+    private long coolDownMillis;
+
+    @Autowired
+    private SlotCoordinator slotCoordinator;
+
+    @Autowired
+    private GeneratorClock generatorClock;
+
+    private ScheduledExecutorService executor;
+
+    // Only accessed by the scaler thread
+    private long lastOverflowCount;
+    private long exhaustedSinceNanos = NOT_EXHAUSTED;
+    private long calmSinceNanos;
+
+    LongSupplier nanoClock = System::nanoTime;
+
+    @PostConstruct
+    public void init() {
+        if (maxSlots < 1 || maxSlots > IDGeneratorService.MAX_MACHINE_ID + 1) {
+            throw new IllegalArgumentException("Maximum slots must be between 1 and "
+                    + (IDGeneratorService.MAX_MACHINE_ID + 1) + ": " + maxSlots);
+        }
+        if (maxSlots == 1) {
+            return;
+        }
+
+        lastOverflowCount = generatorClock.getMetrics().getSequenceOverflowCount();
+        calmSinceNanos = nanoClock.getAsLong();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "slot-scaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Claiming up to {} slots after {} ms of sequence exhaustion, giving them back after {} ms without",
+                maxSlots, scaleUpAfterMillis, coolDownMillis);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs on the scaler thread every {@code slot.elastic.check-interval-ms}.
+     */
+    void check() {
+        try {
+            long now = nanoClock.getAsLong();
+            long overflowCount = generatorClock.getMetrics().getSequenceOverflowCount();
+            boolean exhausted = overflowCount > lastOverflowCount;
+            lastOverflowCount = overflowCount;
+
+            int slotCount = slotCoordinator.getSlotCount();
+            if (exhausted) {
+                calmSinceNanos = now;
+                if (exhaustedSinceNanos == NOT_EXHAUSTED) {
+                    exhaustedSinceNanos = now;
+                } else if (now - exhaustedSinceNanos >= TimeUnit.MILLISECONDS.toNanos(scaleUpAfterMillis)
+                        && slotCount < maxSlots) {
+                    logger.info("Sequence space exhausted for {} ms, asking for slot {} of {}",
+                            TimeUnit.NANOSECONDS.toMillis(now - exhaustedSinceNanos), slotCount + 1, maxSlots);
+                    slotCoordinator.requestSlotCount(slotCount + 1);
+                    exhaustedSinceNanos = now;
+                }
+            } else {
+                exhaustedSinceNanos = NOT_EXHAUSTED;
+                if (now - calmSinceNanos >= TimeUnit.MILLISECONDS.toNanos(coolDownMillis) && slotCount > 1) {
+                    logger.info("No sequence exhaustion for {} ms, giving back one of {} slots",
+                            TimeUnit.NANOSECONDS.toMillis(now - calmSinceNanos), slotCount);
+                    slotCoordinator.requestSlotCount(slotCount - 1);
+                    calmSinceNanos = now;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to check sequence exhaustion", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.gendora.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Claims a machine ID slot by locking one of the files {@code slot-<n>.lock} in a directory shared
+ * by the processes on a host. The operating system releases the lock when the process exits, so
+ * slots of crashed processes become free immediately and no heartbeat is needed.
+ *
+ * <p>Slots are taken from {@code slot.file.first-slot} up to {@code slot.file.slot-count} slots
+ * (0 for all slots the ID layout has from there on), so several hosts can use disjoint ranges of
+ * the slot space.
+ */
+@Service
+@ConditionalOnProperty(name = "slot.coordinator", havingValue = "file")
+public class FileLockSlotCoordinator implements SlotCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileLockSlotCoordinator.class);
+
+    private final int slot;
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    @Autowired
+    public FileLockSlotCoordinator(@Value("${slot.file.directory:/tmp/gendora-slots}") Path directory,
+                                   @Value("${slot.file.first-slot:0}") int firstSlot,
+                                   @Value("${slot.file.slot-count:0}") int slotCount) throws IOException {
+        if (slotCount == 0) {
+            slotCount = (int) (IDGeneratorService.MAX_MACHINE_ID + 1 - firstSlot);
+        }
+        if (firstSlot < 0 || slotCount < 1 || firstSlot + slotCount - 1 > IDGeneratorService.MAX_MACHINE_ID) {
+            throw new IllegalArgumentException("Slot range must be within 0 and " + IDGeneratorService.MAX_MACHINE_ID
+                    + ": " + firstSlot + " + " + slotCount);
+        }
+        Files.createDirectories(directory);
+
+        for (int slot = firstSlot; slot < firstSlot + slotCount; slot++) {
+            FileChannel channel = FileChannel.open(directory.resolve("slot-" + slot + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = null;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Held by another coordinator in this JVM
+            }
+
+            if (lock != null) {
+                this.slot = slot;
+                this.channel = channel;
+                this.lock = lock;
+                logger.info("Successfully claimed slot {} in {}", slot, directory);
+                return;
+            }
+            channel.close();
+        }
+
+        throw new IllegalStateException("No available slots found (all " + slotCount + " slots in "
+                + directory + " are locked)");
+    }
+
+    @Override
+    public int getAllocatedSlot() {
+        return slot;
+    }
+
+    @PreDestroy
+    public void release() {
+        try {
+            lock.release();
+            channel.close();
+            logger.info("Released slot {}", slot);
+        } catch (IOException e) {
+            logger.error("Failed to release slot {}", slot, e);
+        }
+    }
+}
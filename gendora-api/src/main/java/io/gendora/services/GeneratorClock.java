@@ -0,0 +1,161 @@
+package io.gendora.services;
+
+import io.gendora.time.TimeSource;
+import io.gendora.time.WallClockTimeSource;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which millisecond a sequence generator uses, based on a {@link TimeSource}.
+ *
+ * <p>When the sequence space of a millisecond is exhausted, a generator may run ahead of the
+ * clock by up to {@code maxClockDriftMillis} instead of waiting for the clock to tick (a logical
+ * clock); it only waits once that budget is spent. A budget of 0 always waits for the next
+ * millisecond.
+ *
+ * <p>A clock that is behind the last used timestamp by more than the budget moved backwards, which
+ * is handled according to the {@link BackwardsPolicy}, for steps of up to
+ * {@code maxBackwardsMillis}. Larger steps always fail.
+ */
+public class GeneratorClock {
+
+    public enum BackwardsPolicy {
+        /** Refuse to generate IDs until the clock caught up. */
+        FAIL,
+        /** Block the caller until the clock caught up. */
+        WAIT,
+        /** Keep going from the last used timestamp, running ahead of the clock by up to the step. */
+        BORROW
+    }
+
+    // Cleared on threads that would rather give up than wait for the next millisecond
+    private static final ThreadLocal<Boolean> WAIT_FOR_NEXT_MILLISECOND = ThreadLocal.withInitial(() -> Boolean.TRUE);
+
+    private final TimeSource timeSource;
+    private final long maxClockDriftMillis;
+    private final BackwardsPolicy backwardsPolicy;
+    private final long maxBackwardsMillis;
+    private final GeneratorMetrics metrics;
+
+    // How far ahead of the clock the last used timestamp may be
+    private final long maxAheadMillis;
+
+    public GeneratorClock() {
+        this(new WallClockTimeSource());
+    }
+
+    public GeneratorClock(TimeSource timeSource) {
+        this(timeSource, 0, BackwardsPolicy.FAIL, 0);
+    }
+
+    public GeneratorClock(TimeSource timeSource, long maxClockDriftMillis,
+                          BackwardsPolicy backwardsPolicy, long maxBackwardsMillis) {
+        this(timeSource, maxClockDriftMillis, backwardsPolicy, maxBackwardsMillis, new GeneratorMetrics());
+    }
+
+    public GeneratorClock(TimeSource timeSource, long maxClockDriftMillis,
+                          BackwardsPolicy backwardsPolicy, long maxBackwardsMillis, GeneratorMetrics metrics) {
+        if (maxClockDriftMillis < 0) {
+            throw new IllegalArgumentException("Maximum clock drift must not be negative: " + maxClockDriftMillis);
+        }
+        if (maxBackwardsMillis < 0) {
+            throw new IllegalArgumentException("Maximum clock backwards step must not be negative: " + maxBackwardsMillis);
+        }
+
+        this.timeSource = timeSource;
+        this.maxClockDriftMillis = maxClockDriftMillis;
+        this.backwardsPolicy = backwardsPolicy;
+        this.maxBackwardsMillis = maxBackwardsMillis;
+        this.metrics = metrics;
+        this.maxAheadMillis = backwardsPolicy == BackwardsPolicy.BORROW
+                ? maxClockDriftMillis + maxBackwardsMillis
+                : maxClockDriftMillis;
+    }
+
+    /**
+     * Runs {@code generation} on the calling thread, failing with a
+     * {@link SequenceExhaustedException} where it would wait for the next millisecond. Generators
+     * wait before they update their state, so it is left as it was and the caller can try again
+     * later.
+     */
+    public static long withoutWaiting(LongSupplier generation) {
+        WAIT_FOR_NEXT_MILLISECOND.set(Boolean.FALSE);
+        try {
+            return generation.getAsLong();
+        } finally {
+            WAIT_FOR_NEXT_MILLISECOND.set(Boolean.TRUE);
+        }
+    }
+
+    public long currentTimeMillis() {
+        return timeSource.currentTimeMillis();
+    }
+
+    /**
+     * Reads the clock for a generator that last used {@code lastTimestamp}. A clock behind
+     * {@code lastTimestamp} within the allowed drift means the generator is still running on
+     * borrowed milliseconds, so it continues at {@code lastTimestamp}.
+     */
+    long currentTimestamp(long lastTimestamp) {
+        long timestamp = timeSource.currentTimeMillis();
+        if (timestamp >= lastTimestamp) {
+            return timestamp;
+        }
+
+        long backwardsMillis = lastTimestamp - timestamp;
+        if (backwardsMillis > maxClockDriftMillis) {
+            metrics.recordClockBackwards(backwardsMillis);
+        }
+        if (backwardsMillis <= maxAheadMillis) {
+            return lastTimestamp;
+        }
+
+        if (backwardsPolicy == BackwardsPolicy.WAIT && backwardsMillis - maxAheadMillis <= maxBackwardsMillis) {
+            while (lastTimestamp - timestamp > maxAheadMillis) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                timestamp = timeSource.currentTimeMillis();
+            }
+            return Math.max(timestamp, lastTimestamp);
+        }
+
+        throw new ClockMovedBackwardsException(backwardsMillis);
+    }
+
+    /**
+     * Picks the millisecond to continue in once the sequence space of {@code lastTimestamp} is
+     * exhausted. Borrows {@code lastTimestamp + 1} ahead of the clock if that stays within the
+     * allowed drift, otherwise waits until it does, or fails within {@link #withoutWaiting}.
+     */
+    long nextMillisecond(long lastTimestamp) {
+        metrics.recordSequenceOverflow();
+
+        long nextTimestamp = lastTimestamp + 1;
+        long timestamp = timeSource.currentTimeMillis();
+        if (nextTimestamp - timestamp > maxAheadMillis) {
+            if (!WAIT_FOR_NEXT_MILLISECOND.get()) {
+                throw new SequenceExhaustedException(nextTimestamp - maxAheadMillis - timestamp);
+            }
+            long waitStart = System.nanoTime();
+            do {
+                Thread.onSpinWait();
+                timestamp = timeSource.currentTimeMillis();
+            } while (nextTimestamp - timestamp > maxAheadMillis);
+            metrics.recordOverflowWait(System.nanoTime() - waitStart);
+        }
+        return Math.max(timestamp, nextTimestamp);
+    }
+
+    public long getMaxClockDriftMillis() {
+        return maxClockDriftMillis;
+    }
+
+    public BackwardsPolicy getBackwardsPolicy() {
+        return backwardsPolicy;
+    }
+
+    public GeneratorMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,100 @@
+package io.gendora.services;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Counts what the generators sharing a {@link GeneratorClock} run into: exhausted sequence spaces,
+ * the time spent waiting for the next millisecond, and the clock moving backwards.
+ *
+ * <p>Many threads hit a millisecond boundary at once, so the counters are striped
+ * {@link LongAdder}s and {@link LongAccumulator}s rather than a shared atomic. Nothing is recorded
+ * per ID: the number of IDs handed out in a millisecond is reported once, when a generator moves
+ * on to the next one, and the sum of those counts is the number of IDs generated.
+ */
+public class GeneratorMetrics {
+
+    private final LongConsumer idsPerMillisecond;
+
+    private final LongAdder sequenceOverflows = new LongAdder();
+    private final LongAdder overflowWaits = new LongAdder();
+    private final LongAdder overflowWaitNanos = new LongAdder();
+    private final LongAccumulator maxOverflowWaitNanos = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder clockBackwards = new LongAdder();
+    private final LongAdder clockBackwardsMillis = new LongAdder();
+    private final LongAccumulator maxClockBackwardsMillis = new LongAccumulator(Math::max, 0);
+
+    public GeneratorMetrics() {
+        this(count -> {
+        });
+    }
+
+    /**
+     * @param idsPerMillisecond receives the number of IDs a generator handed out in a millisecond,
+     *                          per sequence state, e.g. to record it in a histogram
+     */
+    public GeneratorMetrics(LongConsumer idsPerMillisecond) {
+        this.idsPerMillisecond = idsPerMillisecond;
+    }
+
+    void recordMillisecond(long ids) {
+        idsPerMillisecond.accept(ids);
+    }
+
+    void recordSequenceOverflow() {
+        sequenceOverflows.increment();
+    }
+
+    void recordOverflowWait(long nanos) {
+        overflowWaits.increment();
+        overflowWaitNanos.add(nanos);
+        maxOverflowWaitNanos.accumulate(nanos);
+    }
+
+    void recordClockBackwards(long millis) {
+        clockBackwards.increment();
+        clockBackwardsMillis.add(millis);
+        maxClockBackwardsMillis.accumulate(millis);
+    }
+
+    /**
+     * Number of times a caller found the sequence space of the current millisecond exhausted.
+     */
+    public long getSequenceOverflowCount() {
+        return sequenceOverflows.sum();
+    }
+
+    /**
+     * Number of sequence overflows that had to wait for the clock, as opposed to borrowing the
+     * next millisecond within the drift budget.
+     */
+    public long getOverflowWaitCount() {
+        return overflowWaits.sum();
+    }
+
+    public long getOverflowWaitNanos() {
+        return overflowWaitNanos.sum();
+    }
+
+    public long getMaxOverflowWaitNanos() {
+        return maxOverflowWaitNanos.get();
+    }
+
+    /**
+     * Number of clock reads that found the clock behind the last used timestamp by more than the
+     * drift budget, whether they then waited, borrowed or failed.
+     */
+    public long getClockBackwardsCount() {
+        return clockBackwards.sum();
+    }
+
+    public long getClockBackwardsMillis() {
+        return clockBackwardsMillis.sum();
+    }
+
+    public long getMaxClockBackwardsMillis() {
+        return maxClockBackwardsMillis.get();
+    }
+}
@@ -0,0 +1,330 @@
+package io.gendora.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+import static io.gendora.services.IDGeneratorService.EPOCH;
+import static io.gendora.services.IDGeneratorService.MAX_MACHINE_ID;
+import static io.gendora.services.IDGeneratorService.MAX_NODE_ID;
+import static io.gendora.services.IDGeneratorService.TIMESTAMP_SHIFT;
+
+/**
+ * Keeps a persisted high-water mark per slot ahead of the timestamps of the IDs handed out, so IDs
+ * stay unique across restarts even if the clock of the restarted instance is behind, or another
+ * instance takes over the slot right away.
+ *
+ * <p>Before the first ID of a slot is handed out, the mark is loaded and no ID below it is handed
+ * out: callers wait for the clock to reach it if that takes at most {@code maxWaitMillis}, and get
+ * a {@link ClockMovedBackwardsException} otherwise.
+ *
+ * <p>The mark is written ahead in steps of {@code stepMillis}. A background thread checks every
+ * quarter step and moves the marks of the slots still held one step ahead of the clock, so they
+ * stay at least half a step ahead whether or not IDs are requested, and the hot path only reads a
+ * volatile field. Only if IDs reach the mark anyway, e.g. because the write failed or the slot was
+ * held again after a while, does the caller write it itself.
+ *
+ * <p>Instances holding several slots keep a mark per slot. A slot given up may have been held by
+ * another instance meanwhile, so before a mark is moved, the persisted one is read again and
+ * becomes the new floor if it moved past ours. Marks are only moved for slots still held, so
+ * instances never write ahead the mark of a slot another instance holds.
+ *
+ * <p>Reading and writing the store is guarded by {@link ReentrantLock}s rather than monitors, so
+ * virtual threads catching up with the mark do not pin their carrier thread.
+ */
+public class HighWaterMarkSequenceGenerator implements SequenceGenerator, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HighWaterMarkSequenceGenerator.class);
+
+    private static final class Mark {
+        final int slot;
+        // Timestamp from which IDs may be handed out
+        volatile long floor;
+        // Timestamp up to which IDs may be handed out, as persisted
+        volatile long reservedUntil;
+        final AtomicBoolean extending = new AtomicBoolean();
+        final ReentrantLock lock = new ReentrantLock();
+
+        Mark(int slot, long floor, long reservedUntil) {
+            this.slot = slot;
+            this.floor = floor;
+            this.reservedUntil = reservedUntil;
+        }
+    }
+
+    private final SequenceGenerator delegate;
+    private final GeneratorClock clock;
+    private final HighWaterMarkStore store;
+    private final long stepMillis;
+    private final long maxWaitMillis;
+    // Slots of the instance, by machine ID
+    private final IntPredicate heldSlots;
+    private final ScheduledExecutorService writer;
+    private final ReentrantLock marksLock = new ReentrantLock();
+
+    // Indexed by node ID, as the store is
+    private final AtomicReferenceArray<Mark> marks = new AtomicReferenceArray<>((int) MAX_NODE_ID + 1);
+
+    /**
+     * Creates a generator that considers every slot it generated IDs for as held.
+     */
+    public HighWaterMarkSequenceGenerator(SequenceGenerator delegate, GeneratorClock clock, HighWaterMarkStore store,
+                                          long stepMillis, long maxWaitMillis) {
+        this(delegate, clock, store, stepMillis, maxWaitMillis, slot -> true);
+    }
+
+    /**
+     * @param heldSlots whether the instance still holds a slot, given its machine ID, see
+     *                  {@link SlotCoordinator#holdsSlot(int)}
+     */
+    public HighWaterMarkSequenceGenerator(SequenceGenerator delegate, GeneratorClock clock, HighWaterMarkStore store,
+                                          long stepMillis, long maxWaitMillis, IntPredicate heldSlots) {
+        if (stepMillis < 2) {
+            throw new IllegalArgumentException("High-water mark step must be at least 2 ms: " + stepMillis);
+        }
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Maximum wait for the high-water mark must not be negative: " + maxWaitMillis);
+        }
+
+        this.delegate = delegate;
+        this.clock = clock;
+        this.store = store;
+        this.stepMillis = stepMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.heldSlots = heldSlots;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "id-high-water-mark-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1, stepMillis / 4);
+        writer.scheduleWithFixedDelay(this::keepMarksAhead, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long nextId(long machineId) {
+        return reservedId(machineId, null);
+    }
+
+    @Override
+    public void nextIds(long machineId, long[] ids) {
+        reserveIds(machineId, null, ids);
+    }
+
+    /**
+     * Namespaces share the slot's mark, since their IDs share its timestamps.
+     */
+    @Override
+    public long nextId(long machineId, String namespace) {
+        return reservedId(machineId, namespace);
+    }
+
+    @Override
+    public void nextIds(long machineId, String namespace, long[] ids) {
+        reserveIds(machineId, namespace, ids);
+    }
+
+    /**
+     * The furthest persisted high-water mark of the slots IDs were generated for, or 0 before the
+     * first ID.
+     */
+    public long getReservedUntil() {
+        long reservedUntil = 0;
+        for (int slot = 0; slot < marks.length(); slot++) {
+            Mark mark = marks.get(slot);
+            if (mark != null) {
+                reservedUntil = Math.max(reservedUntil, mark.reservedUntil);
+            }
+        }
+        return reservedUntil;
+    }
+
+    /**
+     * Waits for a pending write of the mark, and closes the store if it holds resources itself.
+     */
+    @Override
+    public void close() throws Exception {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (store instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private long reservedId(long machineId, String namespace) {
+        Mark mark = markFor(machineId);
+        while (true) {
+            long id = namespace == null ? delegate.nextId(machineId) : delegate.nextId(machineId, namespace);
+            long timestamp = timestampOf(id);
+            if (timestamp >= mark.floor && reserve(mark, timestamp)) {
+                return id;
+            }
+            awaitFloor(mark, timestamp);
+        }
+    }
+
+    private void reserveIds(long machineId, String namespace, long[] ids) {
+        Mark mark = markFor(machineId);
+        while (true) {
+            if (namespace == null) {
+                delegate.nextIds(machineId, ids);
+            } else {
+                delegate.nextIds(machineId, namespace, ids);
+            }
+            long firstTimestamp = timestampOf(ids[0]);
+            if (firstTimestamp >= mark.floor && reserve(mark, timestampOf(ids[ids.length - 1]))) {
+                return;
+            }
+            awaitFloor(mark, firstTimestamp);
+        }
+    }
+
+    private Mark markFor(long machineId) {
+        int slot = (int) machineId;
+        Mark mark = marks.get(slot);
+        if (mark != null) {
+            return mark;
+        }
+
+        marksLock.lock();
+        try {
+            mark = marks.get(slot);
+            if (mark == null) {
+                try {
+                    long floor = store.load(slot);
+                    long reservedUntil = Math.max(floor, clock.currentTimeMillis()) + stepMillis;
+                    store.store(slot, reservedUntil);
+                    mark = new Mark(slot, floor, reservedUntil);
+                } catch (IOException | RuntimeException e) {
+                    throw new IllegalStateException("Failed to load the high-water mark of slot " + slot, e);
+                }
+                logger.info("Generating IDs for slot {} from high-water mark {}, reserved until {}",
+                        slot, mark.floor, mark.reservedUntil);
+                marks.set(slot, mark);
+            }
+            return mark;
+        } finally {
+            marksLock.unlock();
+        }
+    }
+
+    /**
+     * Runs on the writer thread every quarter step, moving the marks of the slots still held ahead
+     * once they are less than three quarters of a step ahead of the clock.
+     */
+    private void keepMarksAhead() {
+        long now = clock.currentTimeMillis();
+        for (int slot = 0; slot < marks.length(); slot++) {
+            Mark mark = marks.get(slot);
+            if (mark == null || now < mark.reservedUntil - stepMillis * 3 / 4
+                    || !heldSlots.test((int) (slot & MAX_MACHINE_ID))) {
+                continue;
+            }
+            try {
+                reload(mark, now);
+                extend(mark, now);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to move the high-water mark of slot {} ahead", mark.slot, e);
+            }
+        }
+    }
+
+    /**
+     * Makes sure the mark stays ahead of the given timestamp. Returns false if the mark turned out
+     * to have been moved past it by another instance, so the ID must not be handed out.
+     */
+    private boolean reserve(Mark mark, long timestamp) {
+        long reservedUntil = mark.reservedUntil;
+        if (timestamp < reservedUntil - stepMillis / 2) {
+            return true;
+        }
+
+        if (timestamp < reservedUntil) {
+            if (mark.extending.compareAndSet(false, true)) {
+                try {
+                    writer.execute(() -> {
+                        try {
+                            extend(mark, timestamp);
+                        } catch (IOException | RuntimeException e) {
+                            logger.error("Failed to move the high-water mark of slot {} ahead", mark.slot, e);
+                        } finally {
+                            mark.extending.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    mark.extending.set(false);
+                }
+            }
+            return true;
+        }
+
+        // The background write failed or did not keep up, or the slot was not held for a while:
+        // the ID must not be handed out before the mark moved
+        try {
+            if (!reload(mark, timestamp)) {
+                return false;
+            }
+            extend(mark, timestamp);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Failed to move the high-water mark of slot " + mark.slot + " ahead", e);
+        }
+    }
+
+    private boolean reload(Mark mark, long timestamp) throws IOException {
+        mark.lock.lock();
+        try {
+            long persisted = store.load(mark.slot);
+            if (persisted <= mark.reservedUntil) {
+                return true;
+            }
+
+            logger.warn("High-water mark of slot {} was moved from {} to {} by another instance",
+                    mark.slot, mark.reservedUntil, persisted);
+            mark.floor = persisted;
+            extend(mark, persisted);
+            return timestamp >= persisted;
+        } finally {
+            mark.lock.unlock();
+        }
+    }
+
+    private void extend(Mark mark, long timestamp) throws IOException {
+        mark.lock.lock();
+        try {
+            long reservedUntil = Math.max(timestamp, clock.currentTimeMillis()) + stepMillis;
+            if (reservedUntil > mark.reservedUntil) {
+                store.store(mark.slot, reservedUntil);
+                mark.reservedUntil = reservedUntil;
+            }
+        } finally {
+            mark.lock.unlock();
+        }
+    }
+
+    private void awaitFloor(Mark mark, long timestamp) {
+        long behindMillis = mark.floor - timestamp;
+        if (behindMillis > maxWaitMillis) {
+            throw new ClockMovedBackwardsException(behindMillis);
+        }
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(behindMillis));
+    }
+
+    private static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+}
@@ -0,0 +1,22 @@
+package io.gendora.services;
+
+import java.io.IOException;
+
+/**
+ * Persists, per slot, a timestamp below which all IDs of that slot have been generated, so a
+ * restarted instance does not generate IDs it may already have handed out before, see
+ * {@link HighWaterMarkSequenceGenerator}.
+ */
+public interface HighWaterMarkStore {
+
+    /**
+     * Returns the persisted high-water mark of the slot, or 0 if there is none.
+     */
+    long load(int slot) throws IOException;
+
+    /**
+     * Persists a new high-water mark for the slot. Marks only ever move forward, lower values are
+     * ignored.
+     */
+    void store(int slot, long timestamp) throws IOException;
+}
@@ -1,93 +1,180 @@
 package io.gendora.services;
 
 import com.google.common.collect.ImmutableMap;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
 import java.util.Map;
 
 @Service
 public class IDGeneratorService {
-    private static final long EPOCH = 1761955200000L; // 2025-11-01 00:00:00 GMT +0000
-    
-    // Bit layout: [Sign: 1 bit] [Timestamp (since epoch): 43 bits] [MachineID: 10 bits] [Sequence: 10 bits]
-    private static final long TIMESTAMP_BITS = 43;
-    private static final long MACHINE_ID_BITS = 10;
-    private static final long SEQUENCE_BITS = 10;
-    
-    private static final long SEQUENCE_SHIFT = 0;
-    private static final long MACHINE_ID_SHIFT = SEQUENCE_BITS;
-    private static final long TIMESTAMP_SHIFT = MACHINE_ID_SHIFT + MACHINE_ID_BITS;
-
-    private static final long MAX_MACHINE_ID = (1 << MACHINE_ID_BITS) - 1;
-    private static final long MAX_SEQUENCE_ID = (1 << SEQUENCE_BITS) - 1;
-    private static final long MAX_TIMESTAMP_DELTA = (1L << TIMESTAMP_BITS) - 1;
+
+    private static final Logger logger = LoggerFactory.getLogger(IDGeneratorService.class);
+
+    static final long EPOCH = 1761955200000L; // 2025-11-01 00:00:00 GMT +0000
+
+    // Bit layout: [Sign: 1 bit] [Timestamp (since epoch)] [DatacenterID] [MachineID] [Sequence], 43/0/10/10
+    // unless configured otherwise. Static finals, so the JIT folds the shifts and masks into the
+    // generators' code as constants.
+    static final IdLayout LAYOUT = IdLayout.active();
+
+    static final long TIMESTAMP_BITS = LAYOUT.timestampBits();
+    static final long DATACENTER_ID_BITS = LAYOUT.datacenterIdBits();
+    static final long MACHINE_ID_BITS = LAYOUT.machineIdBits();
+    static final long SEQUENCE_BITS = LAYOUT.sequenceBits();
+
+    static final long SEQUENCE_SHIFT = 0;
+    static final long MACHINE_ID_SHIFT = SEQUENCE_BITS;
+    static final long DATACENTER_ID_SHIFT = MACHINE_ID_SHIFT + MACHINE_ID_BITS;
+    static final long TIMESTAMP_SHIFT = DATACENTER_ID_SHIFT + DATACENTER_ID_BITS;
+
+    static final long MAX_DATACENTER_ID = LAYOUT.maxDatacenterId();
+    static final long MAX_MACHINE_ID = LAYOUT.maxMachineId();
+    static final long MAX_SEQUENCE_ID = LAYOUT.maxSequenceId();
+    static final long MAX_TIMESTAMP_DELTA = LAYOUT.maxTimestampDelta();
+    // Node IDs are the datacenter ID followed by the machine ID, as generators place them in IDs
+    static final long MAX_NODE_ID = (1L << (DATACENTER_ID_BITS + MACHINE_ID_BITS)) - 1;
 
     @Autowired
-    private SlotAllocatorService slotAllocator;
+    private SlotCoordinator slotCoordinator;
 
-    private long lastTimestamp = -1L;
-    private long sequenceID = 0;
+    @Autowired
+    private SequenceGenerator sequenceGenerator;
 
-    public synchronized long generateId() {
-        long machineId = slotAllocator.getAllocatedSlot();
-        if (machineId > MAX_MACHINE_ID) {
-            throw new RuntimeException("Machine ID exceeds maximum value: " + machineId);
-        }
+    @Value("${generator.max-batch-size:10000}")
+    private int maxBatchSize;
 
-        long timestamp = getCurrentTimestamp();
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException("Clock moved backwards. Refusing to generate id for " + 
-                (lastTimestamp - timestamp) + " milliseconds");
-        }
-        
-        if (timestamp == lastTimestamp) {
-            sequenceID++;
-            if (sequenceID > MAX_SEQUENCE_ID) {
-                // Sequence overflow, wait for next millisecond
-                sequenceID = 0;
-                timestamp = waitForNextMillisecond(lastTimestamp);
-            }
-        } else {
-            sequenceID = 0;
-        }
-        
-        lastTimestamp = timestamp;
-        
-        long timestampDelta = timestamp - EPOCH;
-        if (timestampDelta > MAX_TIMESTAMP_DELTA) {
-            throw new RuntimeException("Timestamp exceeds maximum value");
+    @Value("${generator.datacenter-id:0}")
+    private long datacenterId;
+
+    public IDGeneratorService() {
+    }
+
+    /**
+     * Creates a service outside a Spring context, as the benchmarks in gendora-bench do.
+     */
+    public IDGeneratorService(SlotCoordinator slotCoordinator, SequenceGenerator sequenceGenerator, int maxBatchSize) {
+        this.slotCoordinator = slotCoordinator;
+        this.sequenceGenerator = sequenceGenerator;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (datacenterId < 0 || datacenterId > MAX_DATACENTER_ID) {
+            throw new IllegalArgumentException("Datacenter ID must be between 0 and " + MAX_DATACENTER_ID
+                    + " with ID layout " + LAYOUT + ": " + datacenterId);
         }
+        logger.info("Generating IDs with layout {} (timestamp/datacenter/machine/sequence bits) in datacenter {}",
+                LAYOUT, datacenterId);
+    }
+
+    public long generateId() {
+        return sequenceGenerator.nextId(getNodeId());
+    }
+
+    /**
+     * Generates an ID from the sequence space of the given namespace, so namespaces that exhaust
+     * their sequence space do not hold up the others. Needs {@code generator.namespaces.bits}.
+     */
+    public long generateId(String namespace) {
+        return sequenceGenerator.nextId(getNodeId(), namespace);
+    }
+
+    /**
+     * Generates an ID like {@link #generateId(String)}, or {@link #generateId()} without a
+     * namespace, but fails with a {@link SequenceExhaustedException} instead of waiting when the
+     * sequence space of the current millisecond is exhausted.
+     */
+    public long generateIdWithoutWaiting(String namespace) {
+        return GeneratorClock.withoutWaiting(() -> namespace == null ? generateId() : generateId(namespace));
+    }
+
+    /**
+     * Generates a batch of IDs by reserving whole runs of sequence numbers at once instead of
+     * going through {@link #generateId()} per ID. When the batch does not fit in the remaining
+     * sequence space of the current millisecond, it continues in the following millisecond(s).
+     * The returned IDs are strictly increasing.
+     */
+    public long[] generateIds(int count) {
+        long[] ids = newBatch(count);
+        generateIds(ids);
+        return ids;
+    }
 
-        return (timestampDelta << TIMESTAMP_SHIFT) |
-               (machineId << MACHINE_ID_SHIFT) |
-                sequenceID;
+    /**
+     * Generates a batch of IDs from the sequence space of the given namespace, see
+     * {@link #generateIds(int)} and {@link #generateId(String)}.
+     */
+    public long[] generateIds(int count, String namespace) {
+        long[] ids = newBatch(count);
+        sequenceGenerator.nextIds(getNodeId(), namespace, ids);
+        return ids;
+    }
+
+    /**
+     * Fills the given array with a batch of IDs, see {@link #generateIds(int)}. Lets callers that
+     * generate many batches reuse their array.
+     */
+    public void generateIds(long[] ids) {
+        sequenceGenerator.nextIds(getNodeId(), ids);
     }
 
     public Map<String, Object> getMetadata(long id) {
-        long sequenceID = (id >> SEQUENCE_SHIFT) & MAX_SEQUENCE_ID;
-        long machineId = (id >> MACHINE_ID_SHIFT) & MAX_MACHINE_ID;
-        long timestampDelta = (id >> TIMESTAMP_SHIFT) & MAX_TIMESTAMP_DELTA;
-
-        return ImmutableMap.of(
-                "timestampDelta", Long.toString(timestampDelta),
-                "epoch", Long.toString(EPOCH),
-                "machineID", machineId,
-                "sequenceID", sequenceID,
-                "algorithm", "snowflake"
-        );
-    }
-
-    private long getCurrentTimestamp() {
-        return Instant.now().toEpochMilli();
-    }
-    
-    private long waitForNextMillisecond(long lastTimestamp) {
-        long timestamp = getCurrentTimestamp();
-        while (timestamp <= lastTimestamp) {
-            timestamp = getCurrentTimestamp();
+        ImmutableMap.Builder<String, Object> metadata = ImmutableMap.<String, Object>builder()
+                .put("timestampDelta", Long.toString(getTimestampDelta(id)))
+                .put("epoch", Long.toString(getEpoch()));
+        if (DATACENTER_ID_BITS > 0) {
+            metadata.put("datacenterID", getDatacenterId(id));
+        }
+        return metadata
+                .put("machineID", getMachineId(id))
+                .put("sequenceID", getSequenceId(id))
+                .put("algorithm", "snowflake")
+                .put("layout", LAYOUT.toString())
+                .build();
+    }
+
+    /**
+     * The individual fields of {@link #getMetadata(long)}, for callers that encode them without
+     * building the map.
+     */
+    public long getTimestampDelta(long id) {
+        return IdDecoder.timestampDelta(id);
+    }
+
+    public long getEpoch() {
+        return EPOCH;
+    }
+
+    public long getDatacenterId(long id) {
+        return IdDecoder.datacenterId(id);
+    }
+
+    public long getMachineId(long id) {
+        return IdDecoder.machineId(id);
+    }
+
+    public long getSequenceId(long id) {
+        return IdDecoder.sequenceId(id);
+    }
+
+    private long[] newBatch(int count) {
+        if (count < 1 || count > maxBatchSize) {
+            throw new IllegalArgumentException("Count must be between 1 and " + maxBatchSize + ": " + count);
+        }
+        return new long[count];
+    }
+
+    private long getNodeId() {
+        long machineId = slotCoordinator.getAllocatedSlot();
+        if (machineId > MAX_MACHINE_ID) {
+            throw new RuntimeException("Machine ID exceeds maximum value: " + machineId);
         }
-        return timestamp;
+        return (datacenterId << MACHINE_ID_BITS) | machineId;
     }
 }
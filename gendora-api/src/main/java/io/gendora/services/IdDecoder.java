@@ -0,0 +1,95 @@
+package io.gendora.services;
+
+import static io.gendora.services.IDGeneratorService.DATACENTER_ID_SHIFT;
+import static io.gendora.services.IDGeneratorService.EPOCH;
+import static io.gendora.services.IDGeneratorService.MACHINE_ID_SHIFT;
+import static io.gendora.services.IDGeneratorService.MAX_DATACENTER_ID;
+import static io.gendora.services.IDGeneratorService.MAX_MACHINE_ID;
+import static io.gendora.services.IDGeneratorService.MAX_SEQUENCE_ID;
+import static io.gendora.services.IDGeneratorService.MAX_TIMESTAMP_DELTA;
+import static io.gendora.services.IDGeneratorService.SEQUENCE_SHIFT;
+import static io.gendora.services.IDGeneratorService.TIMESTAMP_SHIFT;
+
+/**
+ * Splits IDs into their fields without generating anything, and maps time windows to the range
+ * of IDs that can have been generated within them.
+ *
+ * <p>Since the timestamp occupies the most significant bits, every ID generated within a window
+ * lies between {@link #minId(long)} of its start and {@link #maxId(long)} of its end, so a time
+ * predicate on stored IDs can be evaluated as a range scan over the IDs themselves.
+ */
+public final class IdDecoder {
+
+    /**
+     * The inclusive bounds of the IDs generated within a time window.
+     */
+    public record Range(long minId, long maxId) {
+    }
+
+    private IdDecoder() {
+    }
+
+    public static DecodedId decode(long id) {
+        return new DecodedId(id, timestampDelta(id), datacenterId(id), machineId(id), sequenceId(id));
+    }
+
+    /**
+     * Decodes a batch of IDs into primitive columns. The given array is retained, not copied.
+     */
+    public static DecodedIds decode(long[] ids) {
+        return new DecodedIds(ids);
+    }
+
+    public static long timestampDelta(long id) {
+        return (id >> TIMESTAMP_SHIFT) & MAX_TIMESTAMP_DELTA;
+    }
+
+    public static long datacenterId(long id) {
+        return (id >> DATACENTER_ID_SHIFT) & MAX_DATACENTER_ID;
+    }
+
+    public static long machineId(long id) {
+        return (id >> MACHINE_ID_SHIFT) & MAX_MACHINE_ID;
+    }
+
+    public static long sequenceId(long id) {
+        return (id >> SEQUENCE_SHIFT) & MAX_SEQUENCE_ID;
+    }
+
+    /**
+     * The smallest ID that can be generated in the given millisecond (since the Unix epoch).
+     */
+    public static long minId(long timestampMillis) {
+        return toTimestampDelta(timestampMillis) << TIMESTAMP_SHIFT;
+    }
+
+    /**
+     * The largest ID that can be generated in the given millisecond (since the Unix epoch).
+     */
+    public static long maxId(long timestampMillis) {
+        return (toTimestampDelta(timestampMillis) << TIMESTAMP_SHIFT)
+                | (MAX_DATACENTER_ID << DATACENTER_ID_SHIFT)
+                | (MAX_MACHINE_ID << MACHINE_ID_SHIFT)
+                | (MAX_SEQUENCE_ID << SEQUENCE_SHIFT);
+    }
+
+    /**
+     * The bounds of the IDs generated from {@code fromMillis} up to and including
+     * {@code toMillis}.
+     */
+    public static Range range(long fromMillis, long toMillis) {
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("Time window start is after its end: " + fromMillis + " > " + toMillis);
+        }
+        return new Range(minId(fromMillis), maxId(toMillis));
+    }
+
+    private static long toTimestampDelta(long timestampMillis) {
+        long timestampDelta = timestampMillis - EPOCH;
+        if (timestampDelta < 0 || timestampDelta > MAX_TIMESTAMP_DELTA) {
+            throw new IllegalArgumentException("Timestamp must be between " + EPOCH + " and "
+                    + (EPOCH + MAX_TIMESTAMP_DELTA) + ": " + timestampMillis);
+        }
+        return timestampDelta;
+    }
+}
@@ -0,0 +1,166 @@
+package io.gendora.services;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * How the 63 usable bits of an ID are split:
+ * [Sign: 1 bit] [Timestamp delta] [Datacenter ID] [Machine ID] [Sequence].
+ *
+ * <p>Layouts are given as a profile name ({@code default}, {@code high-rate}, {@code datacenter}),
+ * or as the bit counts {@code timestamp/machine/sequence} or
+ * {@code timestamp/datacenter/machine/sequence}, e.g. {@code 41/6/16}.
+ *
+ * <p>IDs are generated and decoded with a single {@link #active() active} layout, chosen once per
+ * process: the first use fixes it, and {@link IDGeneratorService} copies its widths, shifts and
+ * masks into {@code static final} fields, which the JIT treats as constants.
+ */
+public record IdLayout(int timestampBits, int datacenterIdBits, int machineIdBits, int sequenceBits) {
+
+    public static final String PROPERTY = "generator.layout";
+
+    public static final IdLayout DEFAULT = new IdLayout(43, 0, 10, 10);
+
+    private static final Map<String, IdLayout> PROFILES = Map.of(
+            "default", DEFAULT,
+            // 64 pods, 65536 IDs per millisecond each, for about 69 years
+            "high-rate", new IdLayout(41, 0, 6, 16),
+            // 32 datacenters of 32 pods, 4096 IDs per millisecond each, for about 69 years
+            "datacenter", new IdLayout(41, 5, 5, 12)
+    );
+
+    // 2^39 ms is about 17 years past the epoch
+    static final int MIN_TIMESTAMP_BITS = 39;
+    // Node IDs (datacenter and machine ID) index the slot files and high-water marks
+    static final int MAX_NODE_ID_BITS = 16;
+    // Sequence and machine IDs are decoded into ints
+    static final int MAX_SEQUENCE_BITS = 22;
+
+    private static IdLayout configured;
+    private static boolean activated;
+
+    private static final class Active {
+        static final IdLayout LAYOUT = activate();
+    }
+
+    public IdLayout {
+        if (timestampBits < 0 || datacenterIdBits < 0 || machineIdBits < 0 || sequenceBits < 0) {
+            throw new IllegalArgumentException("Bit counts must not be negative: " + describe(
+                    timestampBits, datacenterIdBits, machineIdBits, sequenceBits));
+        }
+        if (timestampBits + datacenterIdBits + machineIdBits + sequenceBits != 63) {
+            throw new IllegalArgumentException("Bit counts must add up to 63: " + describe(
+                    timestampBits, datacenterIdBits, machineIdBits, sequenceBits));
+        }
+        if (timestampBits < MIN_TIMESTAMP_BITS) {
+            throw new IllegalArgumentException("At least " + MIN_TIMESTAMP_BITS
+                    + " timestamp bits are needed to last 17 years past the epoch: " + timestampBits);
+        }
+        if (datacenterIdBits + machineIdBits > MAX_NODE_ID_BITS) {
+            throw new IllegalArgumentException("At most " + MAX_NODE_ID_BITS
+                    + " datacenter and machine ID bits are supported: " + (datacenterIdBits + machineIdBits));
+        }
+        if (sequenceBits < 1 || sequenceBits > MAX_SEQUENCE_BITS) {
+            throw new IllegalArgumentException("Sequence bits must be between 1 and " + MAX_SEQUENCE_BITS + ": "
+                    + sequenceBits);
+        }
+    }
+
+    /**
+     * Parses a profile name or bit counts, see the class documentation.
+     */
+    public static IdLayout parse(String layout) {
+        String value = layout.trim().toLowerCase(Locale.ROOT);
+        IdLayout profile = PROFILES.get(value);
+        if (profile != null) {
+            return profile;
+        }
+
+        String[] parts = value.split("/");
+        try {
+            if (parts.length == 3) {
+                return new IdLayout(Integer.parseInt(parts[0]), 0, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            }
+            if (parts.length == 4) {
+                return new IdLayout(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Unknown ID layout: " + layout + " (expected one of: "
+                + String.join(", ", PROFILES.keySet().stream().sorted().toList())
+                + ", timestamp/machine/sequence or timestamp/datacenter/machine/sequence bits)");
+    }
+
+    /**
+     * Chooses the layout {@link #active()} returns. Fails if a different layout is active already,
+     * since IDs of two layouts cannot be told apart.
+     */
+    public static synchronized IdLayout configure(String layout) {
+        IdLayout idLayout = parse(layout);
+        if (activated && !Active.LAYOUT.equals(idLayout)) {
+            throw new IllegalStateException("ID layout " + Active.LAYOUT + " is in use already, cannot switch to "
+                    + idLayout);
+        }
+        configured = idLayout;
+        return idLayout;
+    }
+
+    /**
+     * The layout IDs are generated and decoded with: the one {@link #configure(String) configured}
+     * before the first call, otherwise the {@value #PROPERTY} system property, otherwise
+     * {@link #DEFAULT}.
+     */
+    public static IdLayout active() {
+        return Active.LAYOUT;
+    }
+
+    private static synchronized IdLayout activate() {
+        activated = true;
+        if (configured == null) {
+            configured = parse(System.getProperty(PROPERTY, "default"));
+        }
+        return configured;
+    }
+
+    public int timestampShift() {
+        return datacenterIdShift() + datacenterIdBits;
+    }
+
+    public int datacenterIdShift() {
+        return machineIdShift() + machineIdBits;
+    }
+
+    public int machineIdShift() {
+        return sequenceBits;
+    }
+
+    public long maxTimestampDelta() {
+        return (1L << timestampBits) - 1;
+    }
+
+    public long maxDatacenterId() {
+        return (1L << datacenterIdBits) - 1;
+    }
+
+    public long maxMachineId() {
+        return (1L << machineIdBits) - 1;
+    }
+
+    public long maxSequenceId() {
+        return (1L << sequenceBits) - 1;
+    }
+
+    /**
+     * The bit counts as {@code timestamp/datacenter/machine/sequence}, as reported with ID metadata.
+     */
+    @Override
+    public String toString() {
+        return describe(timestampBits, datacenterIdBits, machineIdBits, sequenceBits);
+    }
+
+    private static String describe(int timestampBits, int datacenterIdBits, int machineIdBits, int sequenceBits) {
+        return timestampBits + "/" + datacenterIdBits + "/" + machineIdBits + "/" + sequenceBits;
+    }
+}
@@ -0,0 +1,136 @@
+package io.gendora.services;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the IDs handed out for an {@code Idempotency-Key}, so a request the client retries
+ * with the same key gets the same IDs again instead of using up more of the sequence space. Keys
+ * are only remembered by this instance, so nginx routes all requests with a key to the same one
+ * and does not retry them on another. Keys are kept for {@code ttlMillis} after their IDs were
+ * generated, and at most {@code maxKeys} of them, the least recently used going first.
+ *
+ * <p>Requests with a key still being generated for wait for that generation and get its IDs. IDs
+ * are only stored once generated, a failed generation is not remembered. Each key holds the IDs
+ * of a single request as one array, returned as is on hits, with the namespace they came from so
+ * the key cannot be replayed for another request.
+ */
+public class IdempotencyCache {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private record Entry(String namespace, long[] ids) {
+    }
+
+    private final Cache<String, Entry> entries;
+    private final int maxKeys;
+    private final long ttlMillis;
+
+    public IdempotencyCache(int maxKeys, long ttlMillis) {
+        this(maxKeys, ttlMillis, System::nanoTime);
+    }
+
+    IdempotencyCache(int maxKeys, long ttlMillis, LongSupplier nanoClock) {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("Maximum keys must be positive: " + maxKeys);
+        }
+        if (ttlMillis < 1) {
+            throw new IllegalArgumentException("TTL must be positive: " + ttlMillis);
+        }
+
+        this.maxKeys = maxKeys;
+        this.ttlMillis = ttlMillis;
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return nanoClock.getAsLong();
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the IDs remembered for the key, or generates and remembers them if there are none.
+     *
+     * @param namespace the namespace the IDs are generated from, or {@code null}
+     * @param count     the number of IDs the request asks for
+     * @throws IllegalArgumentException      if the key is empty or longer than {@link #MAX_KEY_LENGTH}
+     * @throws IdempotencyKeyReusedException if the key was used for a request with another count or
+     *                                       namespace
+     */
+    public long[] getOrGenerate(String key, String namespace, int count, Supplier<long[]> generation) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be between 1 and " + MAX_KEY_LENGTH
+                    + " characters long: " + key.length());
+        }
+
+        Entry entry;
+        try {
+            entry = entries.get(key, () -> new Entry(namespace, generation.get()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            // Lets the generation's own exceptions reach the exception handlers
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (entry.ids().length != count || !Objects.equals(entry.namespace(), namespace)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        return entry.ids();
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Number of keys currently remembered, including expired ones not yet cleaned up.
+     */
+    public long getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Requests that got the IDs remembered for their key.
+     */
+    public long getHitCount() {
+        return stats().hitCount();
+    }
+
+    /**
+     * Requests with a key that had no IDs remembered, or expired ones, and generated new IDs.
+     */
+    public long getMissCount() {
+        return stats().missCount();
+    }
+
+    /**
+     * Keys forgotten, because their TTL ran out or to stay within the maximum number of keys.
+     */
+    public long getEvictionCount() {
+        return stats().evictionCount();
+    }
+
+    private CacheStats stats() {
+        return entries.stats();
+    }
+}
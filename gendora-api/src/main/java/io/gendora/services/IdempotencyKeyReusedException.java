@@ -0,0 +1,12 @@
+package io.gendora.services;
+
+/**
+ * Thrown when an idempotency key comes back with a request for another number of IDs or another
+ * namespace than the IDs remembered for it, see {@link IdempotencyCache}.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency key was used for a different request: " + key, null, false, false);
+    }
+}
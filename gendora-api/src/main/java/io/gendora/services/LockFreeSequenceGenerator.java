@@ -0,0 +1,99 @@
+package io.gendora.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.gendora.services.IDGeneratorService.EPOCH;
+import static io.gendora.services.IDGeneratorService.MAX_SEQUENCE_ID;
+import static io.gendora.services.IDGeneratorService.SEQUENCE_BITS;
+
+/**
+ * Packs the last timestamp (relative to the epoch) and sequence ID into a single state word,
+ * [Timestamp delta: 63 - sequence bits] [Sequence: sequence bits], and advances it with compare-and-set so
+ * that concurrent callers never block on a monitor.
+ */
+public class LockFreeSequenceGenerator extends AbstractSequenceGenerator {
+
+    // Timestamp delta 0 with sequence 0 is never handed out, since the clock is always past the epoch
+    private final AtomicLong state = new AtomicLong();
+
+    public LockFreeSequenceGenerator() {
+        this(new GeneratorClock());
+    }
+
+    public LockFreeSequenceGenerator(GeneratorClock clock) {
+        super(clock);
+    }
+
+    @Override
+    public long nextId(long machineId) {
+        while (true) {
+            // The state must be read before the clock: a timestamp read afterwards can only be
+            // smaller than the stored one if the clock really moved backwards
+            long current = state.get();
+            long lastTimestamp = (current >>> SEQUENCE_BITS) + EPOCH;
+            long timestamp = clock.currentTimestamp(lastTimestamp);
+
+            long next;
+            if (timestamp == lastTimestamp) {
+                if ((current & MAX_SEQUENCE_ID) == MAX_SEQUENCE_ID) {
+                    // Sequence overflow, race for the next millisecond
+                    timestamp = clock.nextMillisecond(lastTimestamp);
+                    next = (timestamp - EPOCH) << SEQUENCE_BITS;
+                } else {
+                    next = current + 1;
+                }
+            } else {
+                next = (timestamp - EPOCH) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                recordMillisecond(current, next);
+                return composeId(timestamp, machineId, next & MAX_SEQUENCE_ID);
+            }
+        }
+    }
+
+    @Override
+    public void nextIds(long machineId, long[] ids) {
+        int generated = 0;
+
+        while (generated < ids.length) {
+            long current = state.get();
+            long lastTimestamp = (current >>> SEQUENCE_BITS) + EPOCH;
+            long timestamp = clock.currentTimestamp(lastTimestamp);
+
+            long firstSequenceID = 0;
+            if (timestamp == lastTimestamp) {
+                long lastSequenceID = current & MAX_SEQUENCE_ID;
+                if (lastSequenceID == MAX_SEQUENCE_ID) {
+                    // Sequence space of this millisecond is used up, continue in the next one
+                    timestamp = clock.nextMillisecond(lastTimestamp);
+                } else {
+                    firstSequenceID = lastSequenceID + 1;
+                }
+            }
+
+            int reserved = (int) Math.min(MAX_SEQUENCE_ID - firstSequenceID + 1, ids.length - generated);
+            long next = ((timestamp - EPOCH) << SEQUENCE_BITS) | (firstSequenceID + reserved - 1);
+            if (!state.compareAndSet(current, next)) {
+                continue;
+            }
+            recordMillisecond(current, next);
+
+            long baseId = composeId(timestamp, machineId, 0);
+            for (int i = 0; i < reserved; i++) {
+                ids[generated++] = baseId | (firstSequenceID + i);
+            }
+        }
+    }
+
+    /**
+     * Reports the IDs handed out in the previous millisecond once a state update moved on from it.
+     * Only the caller whose update won the race reports it.
+     */
+    private void recordMillisecond(long current, long next) {
+        if (current != 0 && (next >>> SEQUENCE_BITS) != (current >>> SEQUENCE_BITS)) {
+            millisecondCompleted(current & MAX_SEQUENCE_ID);
+        }
+    }
+}
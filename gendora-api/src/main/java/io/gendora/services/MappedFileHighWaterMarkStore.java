@@ -0,0 +1,69 @@
+package io.gendora.services;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the high-water marks of all slots in a memory-mapped file of one long per slot (per node
+ * ID, i.e. datacenter and machine ID, if the ID layout has datacenter bits), so
+ * instances sharing a host (or a volume) recover their marks from local disk. Storing a mark
+ * writes it to the mapping and flushes its page to disk, under a {@link ReentrantLock} so virtual
+ * threads waiting for the disk do not pin their carrier thread.
+ */
+public class MappedFileHighWaterMarkStore implements HighWaterMarkStore, AutoCloseable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer marks;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public MappedFileHighWaterMarkStore(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.marks = channel.map(FileChannel.MapMode.READ_WRITE, 0, (IDGeneratorService.MAX_NODE_ID + 1) * Long.BYTES);
+    }
+
+    @Override
+    public long load(int slot) {
+        lock.lock();
+        try {
+            return marks.getLong(offset(slot));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void store(int slot, long timestamp) {
+        int offset = offset(slot);
+        lock.lock();
+        try {
+            if (timestamp > marks.getLong(offset)) {
+                marks.putLong(offset, timestamp);
+                marks.force(offset, Long.BYTES);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int offset(int slot) {
+        if (slot < 0 || slot > IDGeneratorService.MAX_NODE_ID) {
+            throw new IllegalArgumentException("Slot must be between 0 and " + IDGeneratorService.MAX_NODE_ID + ": " + slot);
+        }
+        return slot * Long.BYTES;
+    }
+}
@@ -0,0 +1,188 @@
+package io.gendora.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import static io.gendora.services.IDGeneratorService.SEQUENCE_BITS;
+
+/**
+ * Gives each namespace (e.g. an entity type or tenant) its own sequence state, so a namespace
+ * that exhausts its sequence space in a burst only holds up its own callers.
+ *
+ * <p>The sequence bits are split like in {@link ShardedSequenceGenerator},
+ * [Space: namespace bits] [Counter: remaining sequence bits], with one lock-free state word per
+ * space. Space 0 is shared by callers without a namespace. Each other space is assigned to one
+ * namespace at a time, so IDs stay unique across namespaces and, through the slot, across the
+ * fleet.
+ *
+ * <p>Namespaces are assigned a space on first use and keep it while they are used. Once all spaces
+ * are taken, a new namespace takes over the space of a namespace that has not handed out an ID for
+ * {@code idleMillis}. The space's state word stays, so IDs handed out after the takeover continue
+ * after the ones handed out before. If no namespace is idle, the new namespace shares space 0
+ * until one is.
+ */
+public class NamespacedSequenceGenerator implements SequenceGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(NamespacedSequenceGenerator.class);
+
+    private static final Pattern NAMESPACE = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    static final int SHARED_SPACE = 0;
+
+    private record Assignment(int space, long assignedMillis) {
+    }
+
+    private final ShardedSequenceGenerator spaces;
+    private final GeneratorClock clock;
+    private final long idleMillis;
+
+    private final Map<String, Assignment> namespaces = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final ArrayDeque<Integer> freeSpaces = new ArrayDeque<>();
+    // While all spaces are taken, the earliest time one of them can become idle
+    private volatile long nextEvictionMillis;
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    public NamespacedSequenceGenerator(int namespaceBits, long idleMillis, GeneratorClock clock) {
+        if (namespaceBits < 1 || namespaceBits >= SEQUENCE_BITS) {
+            throw new IllegalArgumentException("Namespace bits must be between 1 and " + (SEQUENCE_BITS - 1)
+                    + " with " + SEQUENCE_BITS + " sequence bits: " + namespaceBits);
+        }
+        if (idleMillis < 1) {
+            throw new IllegalArgumentException("Namespace idle time must be positive: " + idleMillis);
+        }
+
+        this.spaces = new ShardedSequenceGenerator(1 << namespaceBits, clock);
+        this.clock = clock;
+        this.idleMillis = idleMillis;
+        for (int space = SHARED_SPACE + 1; space < spaces.getShardCount(); space++) {
+            freeSpaces.add(space);
+        }
+    }
+
+    @Override
+    public long nextId(long machineId) {
+        return spaces.nextId(machineId, SHARED_SPACE);
+    }
+
+    @Override
+    public void nextIds(long machineId, long[] ids) {
+        spaces.nextIds(machineId, SHARED_SPACE, ids);
+    }
+
+    @Override
+    public long nextId(long machineId, String namespace) {
+        return spaces.nextId(machineId, spaceOf(namespace));
+    }
+
+    @Override
+    public void nextIds(long machineId, String namespace, long[] ids) {
+        spaces.nextIds(machineId, spaceOf(namespace), ids);
+    }
+
+    /**
+     * Number of namespaces that can have a space of their own at the same time.
+     */
+    public int getCapacity() {
+        return spaces.getShardCount() - 1;
+    }
+
+    /**
+     * Number of namespaces that currently have a space of their own.
+     */
+    public int getNamespaceCount() {
+        return namespaces.size();
+    }
+
+    /**
+     * Number of times an idle namespace lost its space to a new one.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Number of IDs of a namespace handed out from the shared space, because all spaces were taken
+     * by namespaces in use.
+     */
+    public long getOverflowCount() {
+        return overflows.sum();
+    }
+
+    /**
+     * Number of times a caller found the sequence space of the given space exhausted.
+     */
+    public long getExhaustionCount(int space) {
+        return spaces.getExhaustionCount(space);
+    }
+
+    int spaceOf(String namespace) {
+        Assignment assignment = namespaces.get(namespace);
+        if (assignment != null) {
+            return assignment.space();
+        }
+        return assign(namespace);
+    }
+
+    private int assign(String namespace) {
+        if (!NAMESPACE.matcher(namespace).matches()) {
+            throw new IllegalArgumentException("Namespace must be 1 to 64 letters, digits, '.', '_' or '-': "
+                    + namespace);
+        }
+
+        // Spares callers of namespaces without a space the lock until one can have become idle
+        long now = clock.currentTimeMillis();
+        if (now < nextEvictionMillis) {
+            overflows.increment();
+            return SHARED_SPACE;
+        }
+
+        synchronized (this) {
+            Assignment assignment = namespaces.get(namespace);
+            if (assignment != null) {
+                return assignment.space();
+            }
+
+            if (freeSpaces.isEmpty()) {
+                evictIdle(now);
+            }
+            Integer space = freeSpaces.poll();
+            if (space == null) {
+                overflows.increment();
+                return SHARED_SPACE;
+            }
+
+            namespaces.put(namespace, new Assignment(space, now));
+            logger.debug("Assigned sequence space {} to namespace {}", space, namespace);
+            return space;
+        }
+    }
+
+    private void evictIdle(long now) {
+        long nextEviction = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<String, Assignment>> iterator = namespaces.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Assignment> entry = iterator.next();
+            Assignment assignment = entry.getValue();
+            long lastUsedMillis = Math.max(assignment.assignedMillis(), spaces.getLastTimestamp(assignment.space()));
+            if (now - lastUsedMillis >= idleMillis) {
+                iterator.remove();
+                freeSpaces.add(assignment.space());
+                evictions.increment();
+                logger.debug("Namespace {} idle for {} ms, released sequence space {}",
+                        entry.getKey(), now - lastUsedMillis, assignment.space());
+            } else {
+                nextEviction = Math.min(nextEviction, lastUsedMillis + idleMillis);
+            }
+        }
+        nextEvictionMillis = freeSpaces.isEmpty() ? nextEviction : 0;
+    }
+}
@@ -0,0 +1,77 @@
+package io.gendora.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import static io.gendora.services.IDGeneratorService.MAX_MACHINE_ID;
+
+/**
+ * Keeps a generator, and so a sequence state, per slot, for instances that spread generation
+ * across several slots: each slot held adds its own sequence space rather than sharing one.
+ *
+ * <p>Generators are created on first use of a slot and kept, so a slot used again later continues
+ * after the IDs it handed out before.
+ */
+public class PerSlotSequenceGenerator<G extends SequenceGenerator> implements SequenceGenerator {
+
+    private final Supplier<G> factory;
+    // Indexed by machine ID, the datacenter ID is the same for all slots of an instance
+    private final AtomicReferenceArray<G> generators = new AtomicReferenceArray<>((int) MAX_MACHINE_ID + 1);
+
+    public PerSlotSequenceGenerator(Supplier<G> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public long nextId(long machineId) {
+        return generatorFor(machineId).nextId(machineId);
+    }
+
+    @Override
+    public void nextIds(long machineId, long[] ids) {
+        generatorFor(machineId).nextIds(machineId, ids);
+    }
+
+    @Override
+    public long nextId(long machineId, String namespace) {
+        return generatorFor(machineId).nextId(machineId, namespace);
+    }
+
+    @Override
+    public void nextIds(long machineId, String namespace, long[] ids) {
+        generatorFor(machineId).nextIds(machineId, namespace, ids);
+    }
+
+    /**
+     * The generators of the slots used so far, e.g. to sum up their metrics.
+     */
+    public List<G> getGenerators() {
+        List<G> created = new ArrayList<>();
+        for (int slot = 0; slot < generators.length(); slot++) {
+            G generator = generators.get(slot);
+            if (generator != null) {
+                created.add(generator);
+            }
+        }
+        return created;
+    }
+
+    private G generatorFor(long machineId) {
+        int slot = (int) (machineId & MAX_MACHINE_ID);
+        G generator = generators.get(slot);
+        if (generator != null) {
+            return generator;
+        }
+
+        synchronized (this) {
+            generator = generators.get(slot);
+            if (generator == null) {
+                generator = factory.get();
+                generators.set(slot, generator);
+            }
+            return generator;
+        }
+    }
+}
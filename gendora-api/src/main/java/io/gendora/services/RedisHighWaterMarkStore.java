@@ -0,0 +1,44 @@
+package io.gendora.services;
+
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.sync.RedisCommands;
+
+/**
+ * Keeps the high-water mark of each slot in Redis next to the slot's lease, under
+ * {@code <application>:slot:<n>:hwm}, so the mark follows the slot to whichever host acquires it
+ * next. The key does not expire.
+ */
+public class RedisHighWaterMarkStore implements HighWaterMarkStore {
+
+    // Raises the mark in KEYS[1] to ARGV[1] if that is higher
+    private static final String STORE_SCRIPT = """
+            local current = tonumber(redis.call('GET', KEYS[1]))
+            if not current or current < tonumber(ARGV[1]) then
+                redis.call('SET', KEYS[1], ARGV[1])
+            end
+            return 0
+            """;
+
+    private final RedisCommands<String, String> redis;
+    private final String applicationName;
+
+    public RedisHighWaterMarkStore(RedisCommands<String, String> redis, String applicationName) {
+        this.redis = redis;
+        this.applicationName = applicationName;
+    }
+
+    @Override
+    public long load(int slot) {
+        String mark = redis.get(getKey(slot));
+        return mark == null ? 0 : Long.parseLong(mark);
+    }
+
+    @Override
+    public void store(int slot, long timestamp) {
+        redis.eval(STORE_SCRIPT, ScriptOutputType.INTEGER, new String[] { getKey(slot) }, Long.toString(timestamp));
+    }
+
+    private String getKey(int slot) {
+        return applicationName + ":slot:" + slot + ":hwm";
+    }
+}
@@ -0,0 +1,600 @@
+package io.gendora.services;
+
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.sync.RedisCommands;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Leases a machine ID slot from Redis. The lease is renewed by a heartbeat, and the coordinator
+ * keeps handing out its slot until shortly before the lease would run out in Redis, so it rides
+ * out short Redis outages. Renewals that fail are retried with exponential backoff. When the lease
+ * was lost, a new slot is acquired.
+ *
+ * <p>When {@link #requestSlotCount(int) asked to}, extra slots are leased the same way, leaving
+ * {@code slot.elastic.reserved-slots} slots free for instances yet to start, and callers are
+ * spread across all slots held. Extra slots are taken out of rotation first and only released in
+ * Redis on a heartbeat at least the lease safety margin later, so callers that picked the slot
+ * just before are done with it.
+ *
+ * <p>The slots callers may use are published as plain volatile fields whenever a lease is taken,
+ * renewed, lost or runs out, so handing out a slot does not read the clock. Running out is
+ * detected by a check scheduled for the lease deadline on a thread of its own, so it is not held
+ * up by a renewal waiting for Redis. The lease safety margin also covers that check running late.
+ */
+@Service
+@ConditionalOnProperty(name = "slot.coordinator", havingValue = "redis", matchIfMissing = true)
+public class RedisSlotCoordinator implements SlotCoordinator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RedisSlotCoordinator.class);
+    private static final int MAX_SLOTS = (int) IDGeneratorService.MAX_MACHINE_ID + 1;
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration SLOT_TTL = Duration.ofMinutes(5);
+    private static final Duration HOST_SLOT_TTL = Duration.ofDays(1);
+    // Stop using the slot this long before the lease would run out in Redis, measured from when
+    // the acquiring or renewing command was sent, to absorb latency and clock rate differences
+    private static final Duration LEASE_SAFETY_MARGIN = Duration.ofSeconds(10);
+    private static final long LEASE_NANOS = SLOT_TTL.minus(LEASE_SAFETY_MARGIN).toNanos();
+    private static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final int NO_SLOT = -1;
+
+    // Claims a free slot in a single round trip. KEYS[1], if given, remembers the slot last held by
+    // this host, which is tried first so restarts keep their slot. Otherwise, slots are scanned from
+    // a random offset so concurrently starting instances do not all contend for the lowest slots.
+    // ARGV: slot key prefix, owner, slot TTL (s), host key TTL (s), number of slots, scan offset,
+    // number of slots to leave free. Returns the claimed slot, or -1 if no slot can be taken.
+    private static final String ALLOCATE_SLOT_SCRIPT = """
+            local prefix, owner, ttl, host_ttl = ARGV[1], ARGV[2], ARGV[3], ARGV[4]
+            local slots, offset, reserved = tonumber(ARGV[5]), tonumber(ARGV[6]), tonumber(ARGV[7])
+            if KEYS[1] then
+                local previous = tonumber(redis.call('GET', KEYS[1]))
+                if previous and previous >= 0 and previous < slots
+                        and redis.call('SET', prefix .. previous, owner, 'NX', 'EX', ttl) then
+                    redis.call('SET', KEYS[1], previous, 'EX', host_ttl)
+                    return previous
+                end
+            end
+            if reserved > 0 then
+                local free = 0
+                for slot = 0, slots - 1 do
+                    if redis.call('EXISTS', prefix .. slot) == 0 then
+                        free = free + 1
+                        if free > reserved then
+                            break
+                        end
+                    end
+                end
+                if free <= reserved then
+                    return -1
+                end
+            end
+            for i = 0, slots - 1 do
+                local slot = (offset + i) % slots
+                if redis.call('SET', prefix .. slot, owner, 'NX', 'EX', ttl) then
+                    if KEYS[1] then
+                        redis.call('SET', KEYS[1], slot, 'EX', host_ttl)
+                    end
+                    return slot
+                end
+            end
+            return -1
+            """;
+
+    // Extends the lease on the slot key KEYS[1] if it is still owned by ARGV[1], for ARGV[2] seconds.
+    // Returns 1 if the lease was extended, 0 if it is gone or owned by another instance.
+    private static final String RENEW_SLOT_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                redis.call('EXPIRE', KEYS[1], ARGV[2])
+                return 1
+            end
+            return 0
+            """;
+
+    // Deletes the slot key KEYS[1] if it is still owned by ARGV[1]. Returns the number of deleted keys.
+    private static final String RELEASE_SLOT_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    // Slots extra slots must leave free, so instances starting later still get one
+    @Value("${slot.elastic.reserved-slots:32}")
+    private int reservedSlots;
+
+    @Autowired
+    private RedisCommands<String, String> redis;
+
+    private final LongSupplier nanoClock;
+
+    private ScheduledExecutorService heartbeatExecutor;
+    private ScheduledExecutorService expiryExecutor;
+
+    private String hostName;
+    private String instanceID;
+
+    // The deadline is written before the slot and read before it, so a newly acquired slot is never
+    // paired with a stale deadline
+    private volatile int allocatedSlot = NO_SLOT;
+    private volatile long leaseDeadlineNanos;
+
+    // What getAllocatedSlot() hands out, read on every generated ID: the allocated slot while its
+    // lease lasts, or NO_SLOT, and the extra slots whose leases last. Written by publishLeases().
+    private volatile int servedSlot = NO_SLOT;
+    private volatile int[] servedExtraSlots = new int[0];
+    private final ReentrantLock publishLock = new ReentrantLock();
+    // Guarded by publishLock
+    private ScheduledFuture<?> expiryCheck;
+
+    private static final class Lease {
+        final int slot;
+        volatile long deadlineNanos;
+        // Only accessed by the heartbeat thread
+        long retiredAtNanos;
+
+        Lease(int slot, long deadlineNanos) {
+            this.slot = slot;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    // Extra slots callers are spread across. Replaced as a whole by the heartbeat thread, so reading
+    // it on every generated ID is a single volatile read.
+    private volatile Lease[] extraLeases = new Lease[0];
+    private volatile int requestedSlotCount = 1;
+
+    // Only accessed by the heartbeat thread
+    private int failedAttempts;
+    // Extra slots taken out of rotation, released in Redis once the safety margin passed
+    private final List<Lease> retiredLeases = new ArrayList<>();
+
+    // Written by the heartbeat thread only, read by metrics
+    private volatile long renewalCount;
+    private volatile long renewalNanos;
+    private volatile long renewalFailureCount;
+    private volatile long leaseLossCount;
+
+    public RedisSlotCoordinator() {
+        this(System::nanoTime);
+    }
+
+    RedisSlotCoordinator(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public int getAllocatedSlot() {
+        int[] extras = servedExtraSlots;
+        if (extras.length > 0) {
+            // Each thread sticks to one of the slots, the primary one at index 0
+            int index = (int) (Thread.currentThread().threadId() % (extras.length + 1)) - 1;
+            if (index >= 0) {
+                return extras[index];
+            }
+        }
+
+        int slot = servedSlot;
+        if (slot == NO_SLOT) {
+            int allocated = allocatedSlot;
+            throw new IllegalStateException(allocated == NO_SLOT
+                    ? "No slot allocated"
+                    : "Lease on slot " + allocated + " expired");
+        }
+        return slot;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.heartbeatExecutor = newScheduledExecutor("slot-lease-heartbeat");
+        this.expiryExecutor = newScheduledExecutor("slot-lease-expiry");
+        
+        try {
+            this.hostName = InetAddress.getLocalHost().getHostName();
+            this.instanceID = hostName + "-" + UUID.randomUUID();
+
+            allocateSlot();
+            scheduleHeartbeat(HEARTBEAT_INTERVAL.toMillis());
+            logger.info("Successfully allocated slot {} for instance {}", allocatedSlot, instanceID);
+        } catch (Exception e) {
+            logger.error("Failed to allocate slot", e);
+            throw new RuntimeException("Slot allocation failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdown();
+            try {
+                if (!heartbeatExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    logger.warn("Heartbeat executor did not terminate within 5 seconds, forcing shutdown");
+                    heartbeatExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                logger.error("Interrupted while waiting for heartbeat executor to shutdown", e);
+                heartbeatExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (expiryExecutor != null) {
+            expiryExecutor.shutdownNow();
+        }
+
+        Lease[] extras = extraLeases;
+        extraLeases = new Lease[0];
+        retiredLeases.addAll(Arrays.asList(extras));
+        publishLeases();
+        releaseRetiredSlots(true);
+        if (allocatedSlot != NO_SLOT) {
+            releaseSlot();
+        }
+    }
+
+    @Override
+    public boolean holdsSlot(int slot) {
+        if (slot == servedSlot) {
+            return true;
+        }
+        for (int extraSlot : servedExtraSlots) {
+            if (extraSlot == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The number of slots callers are currently spread across.
+     */
+    @Override
+    public int getSlotCount() {
+        return (allocatedSlot == NO_SLOT ? 0 : 1) + extraLeases.length;
+    }
+
+    @Override
+    public void requestSlotCount(int slotCount) {
+        requestedSlotCount = Math.max(1, Math.min(slotCount, MAX_SLOTS));
+        try {
+            heartbeatExecutor.execute(this::adjustSlotCount);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void allocateSlot() {
+        long requestedAt = nanoClock.getAsLong();
+        long slot = claimSlot(new String[] { getHostKey() }, 0);
+        if (slot < 0) {
+            throw new RuntimeException("No available slots found (all " + MAX_SLOTS + " slots are occupied)");
+        }
+
+        this.leaseDeadlineNanos = requestedAt + LEASE_NANOS;
+        this.allocatedSlot = (int) slot;
+        publishLeases();
+        logger.info("Successfully claimed slot {} for instance {}", slot, instanceID);
+    }
+
+    private long claimSlot(String[] hostKey, int reserved) {
+        Long slot = redis.eval(
+                ALLOCATE_SLOT_SCRIPT,
+                ScriptOutputType.INTEGER,
+                hostKey,
+                getSlotKeyPrefix(),
+                instanceID,
+                Long.toString(SLOT_TTL.toSeconds()),
+                Long.toString(HOST_SLOT_TTL.toSeconds()),
+                Integer.toString(MAX_SLOTS),
+                Integer.toString(ThreadLocalRandom.current().nextInt(MAX_SLOTS)),
+                Integer.toString(reserved)
+        );
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Runs on the heartbeat thread: claims or retires extra slots until the requested number of
+     * slots is held, or no more slots can be claimed.
+     */
+    void adjustSlotCount() {
+        int extraSlots = requestedSlotCount - 1;
+        while (extraLeases.length > extraSlots) {
+            Lease[] extras = extraLeases;
+            Lease lease = extras[extras.length - 1];
+            extraLeases = Arrays.copyOf(extras, extras.length - 1);
+            lease.retiredAtNanos = nanoClock.getAsLong();
+            retiredLeases.add(lease);
+            publishLeases();
+            logger.info("Took extra slot {} out of rotation, {} slots left", lease.slot, extras.length);
+        }
+        while (extraLeases.length < extraSlots && allocatedSlot != NO_SLOT) {
+            Lease[] extras = extraLeases;
+            long slot;
+            long requestedAt = nanoClock.getAsLong();
+            try {
+                slot = claimSlot(new String[0], reservedSlots);
+            } catch (Exception e) {
+                logger.error("Failed to claim an extra slot", e);
+                return;
+            }
+            if (slot < 0) {
+                logger.warn("No extra slot available while leaving {} slots free, staying at {} slots",
+                        reservedSlots, extras.length + 1);
+                return;
+            }
+            Lease[] claimed = Arrays.copyOf(extras, extras.length + 1);
+            claimed[extras.length] = new Lease((int) slot, requestedAt + LEASE_NANOS);
+            extraLeases = claimed;
+            publishLeases();
+            logger.info("Claimed extra slot {}, now spreading IDs across {} slots", slot, claimed.length + 1);
+        }
+    }
+
+    /**
+     * Runs on the heartbeat thread: renews the lease on the current slot, or acquires a new slot
+     * when there is none, and schedules the next run.
+     */
+    void maintainLease() {
+        int slot = allocatedSlot;
+        try {
+            if (slot == NO_SLOT) {
+                allocateSlot();
+            } else if (!renewLease(slot)) {
+                logger.warn("Lease on slot {} was lost, acquiring a new slot", slot);
+                leaseLossCount++;
+                allocatedSlot = NO_SLOT;
+                publishLeases();
+                allocateSlot();
+            }
+            renewExtraLeases();
+            releaseRetiredSlots(false);
+            failedAttempts = 0;
+            scheduleHeartbeat(HEARTBEAT_INTERVAL.toMillis());
+        } catch (Exception e) {
+            failedAttempts++;
+            if (allocatedSlot != NO_SLOT) {
+                renewalFailureCount++;
+            }
+            long retryDelayMillis = Math.min(HEARTBEAT_INTERVAL.toMillis(),
+                    MIN_RETRY_DELAY.toMillis() << Math.min(failedAttempts - 1, 16));
+            if (allocatedSlot == NO_SLOT) {
+                logger.error("Failed to acquire a slot (attempt {}), retrying in {} ms",
+                        failedAttempts, retryDelayMillis, e);
+            } else {
+                logger.error("Failed to renew lease on slot {} (attempt {}), retrying in {} ms",
+                        slot, failedAttempts, retryDelayMillis, e);
+            }
+            scheduleHeartbeat(retryDelayMillis);
+        }
+    }
+
+    private boolean renewLease(int slot) {
+        long requestedAt = nanoClock.getAsLong();
+        if (!renew(slot, requestedAt)) {
+            return false;
+        }
+        leaseDeadlineNanos = requestedAt + LEASE_NANOS;
+        publishLeases();
+        return true;
+    }
+
+    private void renewExtraLeases() {
+        List<Lease> lost = new ArrayList<>();
+        for (Lease lease : extraLeases) {
+            long requestedAt = nanoClock.getAsLong();
+            if (renew(lease.slot, requestedAt)) {
+                lease.deadlineNanos = requestedAt + LEASE_NANOS;
+                publishLeases();
+            } else {
+                logger.warn("Lease on extra slot {} was lost", lease.slot);
+                leaseLossCount++;
+                lost.add(lease);
+            }
+        }
+        if (!lost.isEmpty()) {
+            extraLeases = Arrays.stream(extraLeases).filter(lease -> !lost.contains(lease)).toArray(Lease[]::new);
+            publishLeases();
+        }
+    }
+
+    private boolean renew(int slot, long requestedAt) {
+        Long renewed = redis.eval(
+                RENEW_SLOT_SCRIPT,
+                ScriptOutputType.INTEGER,
+                new String[] { getSlotKey(slot) },
+                instanceID,
+                Long.toString(SLOT_TTL.toSeconds())
+        );
+        renewalCount++;
+        renewalNanos += nanoClock.getAsLong() - requestedAt;
+        return renewed != null && renewed == 1;
+    }
+
+    /**
+     * Number of lease renewals that got a reply from Redis, whether the lease was still held or not.
+     */
+    public long getRenewalCount() {
+        return renewalCount;
+    }
+
+    /**
+     * Total round-trip time of the renewals counted by {@link #getRenewalCount()}.
+     */
+    public long getRenewalNanos() {
+        return renewalNanos;
+    }
+
+    /**
+     * Number of renewals that failed to reach Redis and are retried with backoff.
+     */
+    public long getRenewalFailureCount() {
+        return renewalFailureCount;
+    }
+
+    /**
+     * Number of times the lease turned out to be gone or taken over on renewal.
+     */
+    public long getLeaseLossCount() {
+        return leaseLossCount;
+    }
+
+    /**
+     * Time until this instance stops handing out its slot unless the lease is renewed, or 0 when
+     * it holds none.
+     */
+    public double getLeaseRemainingSeconds() {
+        long deadline = leaseDeadlineNanos;
+        if (allocatedSlot == NO_SLOT) {
+            return 0;
+        }
+        return Math.max(0, deadline - nanoClock.getAsLong()) / 1e9;
+    }
+
+    /**
+     * Publishes the slots whose leases last for {@link #getAllocatedSlot()}, and schedules the
+     * next run for when the first of them runs out. Runs whenever a lease changes, and on the
+     * expiry thread at lease deadlines.
+     */
+    void publishLeases() {
+        publishLock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            long deadline = leaseDeadlineNanos;
+            int slot = allocatedSlot;
+            // Until the first of the published leases runs out, or 0 if none is published
+            long validNanos = 0;
+
+            Lease[] extras = extraLeases;
+            int[] extraSlots = new int[extras.length];
+            int valid = 0;
+            for (Lease lease : extras) {
+                long remaining = lease.deadlineNanos - now;
+                if (remaining > 0) {
+                    extraSlots[valid++] = lease.slot;
+                    validNanos = validNanos == 0 ? remaining : Math.min(validNanos, remaining);
+                }
+            }
+            servedExtraSlots = valid == extraSlots.length ? extraSlots : Arrays.copyOf(extraSlots, valid);
+
+            if (slot != NO_SLOT && deadline - now > 0) {
+                servedSlot = slot;
+                validNanos = validNanos == 0 ? deadline - now : Math.min(validNanos, deadline - now);
+            } else {
+                servedSlot = NO_SLOT;
+            }
+
+            if (expiryCheck != null) {
+                expiryCheck.cancel(false);
+                expiryCheck = null;
+            }
+            if (validNanos > 0 && expiryExecutor != null) {
+                try {
+                    expiryCheck = expiryExecutor.schedule(this::publishLeases, validNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                }
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * A single thread that drops its pending runs on shutdown, rather than waiting for them.
+     */
+    private static ScheduledExecutorService newScheduledExecutor(String name) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private void scheduleHeartbeat(long delayMillis) {
+        try {
+            heartbeatExecutor.schedule(this::maintainLease, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+    
+    private void releaseSlot() {
+        int slot = allocatedSlot;
+        try {
+            release(slot);
+            allocatedSlot = NO_SLOT;
+            publishLeases();
+        } catch (Exception e) {
+            logger.error("Failed to release slot {}", slot, e);
+        }
+    }
+
+    private void releaseRetiredSlots(boolean shuttingDown) {
+        long now = nanoClock.getAsLong();
+        for (Iterator<Lease> iterator = retiredLeases.iterator(); iterator.hasNext(); ) {
+            Lease lease = iterator.next();
+            if (!shuttingDown && now - lease.retiredAtNanos < LEASE_SAFETY_MARGIN.toNanos()) {
+                continue;
+            }
+            iterator.remove();
+            try {
+                release(lease.slot);
+            } catch (Exception e) {
+                // The lease runs out in Redis by itself
+                logger.error("Failed to release extra slot {}", lease.slot, e);
+            }
+        }
+    }
+
+    private void release(int slot) {
+        Long released = redis.eval(
+                RELEASE_SLOT_SCRIPT,
+                ScriptOutputType.INTEGER,
+                new String[] { getSlotKey(slot) },
+                instanceID
+        );
+        if (released != null && released == 1) {
+            logger.info("Released slot {}", slot);
+        } else {
+            logger.warn("Slot {} is no longer owned by this container", slot);
+        }
+    }
+
+    private String getSlotKey(int slotIndex) {
+        return getSlotKeyPrefix() + slotIndex;
+    }
+
+    private String getSlotKeyPrefix() {
+        return applicationName + ":slot:";
+    }
+
+    private String getHostKey() {
+        return applicationName + ":host:" + hostName;
+    }
+}
@@ -0,0 +1,20 @@
+package io.gendora.services;
+
+/**
+ * Thrown instead of waiting for the next millisecond when the sequence space of the current one is
+ * exhausted, for callers that must not block, see {@link GeneratorClock#withoutWaiting}. Expected
+ * under load, so it is created without a stack trace.
+ */
+public class SequenceExhaustedException extends RuntimeException {
+
+    private final long waitMillis;
+
+    public SequenceExhaustedException(long waitMillis) {
+        super("Sequence space exhausted, the next ID can be generated in " + waitMillis + " ms", null, false, false);
+        this.waitMillis = waitMillis;
+    }
+
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+}
@@ -0,0 +1,32 @@
+package io.gendora.services;
+
+/**
+ * Hands out the timestamp and sequence parts of IDs for a given machine ID. Implementations
+ * differ in how they keep the per-millisecond sequence state consistent across threads.
+ */
+public interface SequenceGenerator {
+
+    long nextId(long machineId);
+
+    /**
+     * Fills the given array with strictly increasing IDs.
+     */
+    void nextIds(long machineId, long[] ids);
+
+    /**
+     * Hands out an ID from the sequence space of the given namespace, so callers of other
+     * namespaces are not held up when it is exhausted. Only supported by generators that keep
+     * sequence state per namespace, see {@link NamespacedSequenceGenerator}.
+     */
+    default long nextId(long machineId, String namespace) {
+        throw new IllegalArgumentException("Namespaces are not enabled (generator.namespaces.bits=0): " + namespace);
+    }
+
+    /**
+     * Fills the given array with strictly increasing IDs from the sequence space of the given
+     * namespace, see {@link #nextId(long, String)}.
+     */
+    default void nextIds(long machineId, String namespace, long[] ids) {
+        throw new IllegalArgumentException("Namespaces are not enabled (generator.namespaces.bits=0): " + namespace);
+    }
+}
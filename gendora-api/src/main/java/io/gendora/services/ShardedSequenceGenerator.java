@@ -0,0 +1,180 @@
+package io.gendora.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static io.gendora.services.IDGeneratorService.EPOCH;
+import static io.gendora.services.IDGeneratorService.SEQUENCE_BITS;
+
+/**
+ * Splits the sequence bits into a shard prefix and a per-shard counter,
+ * [Shard: log2(shards) bits] [Counter: remaining sequence bits], and keeps an independent
+ * lock-free state word per shard. Each calling thread always uses the same shard, so threads
+ * only contend with the other threads of their stripe instead of with every caller.
+ *
+ * <p>A single shard can hand out fewer IDs per millisecond than the whole sequence space, so
+ * the shard count trades burst capacity of a single thread for throughput across many threads.
+ */
+public class ShardedSequenceGenerator extends AbstractSequenceGenerator {
+
+    // Each shard gets 128 bytes of the array to itself (two cache lines, to also defeat the
+    // adjacent line prefetcher), holding its state word followed by its exhaustion count
+    private static final int STRIDE = 16;
+    private static final int EXHAUSTIONS_OFFSET = 1;
+
+    private final int shardCount;
+    private final int shardMask;
+    private final long counterBits;
+    private final long maxCounter;
+    private final AtomicLongArray shards;
+
+    public ShardedSequenceGenerator(int shardCount) {
+        this(shardCount, new GeneratorClock());
+    }
+
+    public ShardedSequenceGenerator(int shardCount, GeneratorClock clock) {
+        super(clock);
+
+        if (shardCount < 1 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Shard count must be a positive power of two: " + shardCount);
+        }
+
+        long shardBits = Integer.numberOfTrailingZeros(shardCount);
+        if (shardBits >= SEQUENCE_BITS) {
+            throw new IllegalArgumentException("Shard count " + shardCount + " does not fit in " + SEQUENCE_BITS +
+                    " sequence bits, at most " + (1L << (SEQUENCE_BITS - 1)) + " shards are supported");
+        }
+
+        this.shardCount = shardCount;
+        this.shardMask = shardCount - 1;
+        this.counterBits = SEQUENCE_BITS - shardBits;
+        this.maxCounter = (1L << counterBits) - 1;
+        // One extra leading stride keeps the first shard away from the array header
+        this.shards = new AtomicLongArray((shardCount + 1) * STRIDE);
+    }
+
+    /**
+     * One shard per available processor, rounded down to a power of two and capped to what the
+     * sequence bits can hold.
+     */
+    public static int defaultShardCount() {
+        int processors = Integer.highestOneBit(Runtime.getRuntime().availableProcessors());
+        return (int) Math.min(processors, 1L << (SEQUENCE_BITS - 1));
+    }
+
+    @Override
+    public long nextId(long machineId) {
+        return nextId(machineId, currentShard());
+    }
+
+    @Override
+    public void nextIds(long machineId, long[] ids) {
+        nextIds(machineId, currentShard(), ids);
+    }
+
+    /**
+     * Hands out an ID from the given shard rather than the calling thread's, for callers that
+     * assign shards themselves, see {@link NamespacedSequenceGenerator}.
+     */
+    long nextId(long machineId, int shard) {
+        int index = stateIndex(shard);
+
+        while (true) {
+            // The state must be read before the clock, see LockFreeSequenceGenerator
+            long current = shards.get(index);
+            long lastTimestamp = (current >>> counterBits) + EPOCH;
+            long timestamp = clock.currentTimestamp(lastTimestamp);
+
+            long next;
+            if (timestamp == lastTimestamp) {
+                if ((current & maxCounter) == maxCounter) {
+                    // Shard overflow, race for the next millisecond
+                    shards.getAndIncrement(index + EXHAUSTIONS_OFFSET);
+                    timestamp = clock.nextMillisecond(lastTimestamp);
+                    next = (timestamp - EPOCH) << counterBits;
+                } else {
+                    next = current + 1;
+                }
+            } else {
+                next = (timestamp - EPOCH) << counterBits;
+            }
+
+            if (shards.compareAndSet(index, current, next)) {
+                recordMillisecond(current, next);
+                return composeId(timestamp, machineId, ((long) shard << counterBits) | (next & maxCounter));
+            }
+        }
+    }
+
+    void nextIds(long machineId, int shard, long[] ids) {
+        int index = stateIndex(shard);
+        long shardPrefix = (long) shard << counterBits;
+        int generated = 0;
+
+        while (generated < ids.length) {
+            long current = shards.get(index);
+            long lastTimestamp = (current >>> counterBits) + EPOCH;
+            long timestamp = clock.currentTimestamp(lastTimestamp);
+
+            long firstCounter = 0;
+            if (timestamp == lastTimestamp) {
+                long lastCounter = current & maxCounter;
+                if (lastCounter == maxCounter) {
+                    // Shard's counter space of this millisecond is used up, continue in the next one
+                    shards.getAndIncrement(index + EXHAUSTIONS_OFFSET);
+                    timestamp = clock.nextMillisecond(lastTimestamp);
+                } else {
+                    firstCounter = lastCounter + 1;
+                }
+            }
+
+            int reserved = (int) Math.min(maxCounter - firstCounter + 1, ids.length - generated);
+            long next = ((timestamp - EPOCH) << counterBits) | (firstCounter + reserved - 1);
+            if (!shards.compareAndSet(index, current, next)) {
+                continue;
+            }
+            recordMillisecond(current, next);
+
+            long baseId = composeId(timestamp, machineId, shardPrefix);
+            for (int i = 0; i < reserved; i++) {
+                ids[generated++] = baseId | (firstCounter + i);
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Number of times a caller found the given shard's counter space exhausted for the current
+     * millisecond and had to move on to the next one.
+     */
+    public long getExhaustionCount(int shard) {
+        return shards.get(stateIndex(shard) + EXHAUSTIONS_OFFSET);
+    }
+
+    /**
+     * The timestamp the given shard last handed out an ID for, or the epoch if it never did.
+     */
+    long getLastTimestamp(int shard) {
+        return (shards.get(stateIndex(shard)) >>> counterBits) + EPOCH;
+    }
+
+    private int currentShard() {
+        return (int) (Thread.currentThread().threadId() & shardMask);
+    }
+
+    private int stateIndex(int shard) {
+        return (shard + 1) * STRIDE;
+    }
+
+    /**
+     * Reports the IDs handed out in the previous millisecond once a state update moved on from it.
+     * Only the caller whose update won the race reports it.
+     */
+    private void recordMillisecond(long current, long next) {
+        if (current != 0 && (next >>> counterBits) != (current >>> counterBits)) {
+            millisecondCompleted(current & maxCounter);
+        }
+    }
+}
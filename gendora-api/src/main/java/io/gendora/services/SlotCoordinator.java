@@ -0,0 +1,46 @@
+package io.gendora.services;
+
+/**
+ * Assigns this instance a machine ID slot that no other running instance uses. The backend is
+ * selected with {@code slot.coordinator}:
+ *
+ * <ul>
+ *   <li>{@code redis} (default): {@link RedisSlotCoordinator}</li>
+ *   <li>{@code static}: {@link StaticSlotCoordinator}</li>
+ *   <li>{@code file}: {@link FileLockSlotCoordinator}</li>
+ * </ul>
+ */
+public interface SlotCoordinator {
+
+    /**
+     * Returns the slot held by this instance. Called for every generated ID, so implementations
+     * keep this to a few field reads. Coordinators holding several slots spread callers across
+     * them.
+     *
+     * @throws IllegalStateException if the instance currently holds no valid slot
+     */
+    int getAllocatedSlot();
+
+    /**
+     * Whether the instance currently holds the given slot, so it may write state kept per slot,
+     * such as its high-water mark. Called off the hot path.
+     */
+    default boolean holdsSlot(int slot) {
+        return slot == getAllocatedSlot();
+    }
+
+    /**
+     * The number of slots {@link #getAllocatedSlot()} currently spreads callers across.
+     */
+    default int getSlotCount() {
+        return 1;
+    }
+
+    /**
+     * Asks the coordinator to hold the given number of slots, e.g. because the sequence space of
+     * the slots held does not keep up, see {@link ElasticSlotScaler}. Returns without waiting for
+     * slots to be claimed or released. Coordinators that only ever hold one slot ignore it.
+     */
+    default void requestSlotCount(int slotCount) {
+    }
+}
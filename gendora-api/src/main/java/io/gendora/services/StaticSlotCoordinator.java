@@ -0,0 +1,64 @@
+package io.gendora.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Uses a machine ID slot assigned by the deployment, without any coordination at startup. The
+ * slot is taken from {@code slot.static.id} (e.g. set through the {@code SLOT_STATIC_ID}
+ * environment variable) or, if that is empty, from the ordinal suffix of the host name, as in
+ * {@code gendora-api-3} for a Kubernetes StatefulSet pod. {@code slot.static.offset} is added to
+ * the ordinal, so several StatefulSets can be given disjoint slot ranges.
+ *
+ * <p>Keeping assigned slots unique across instances is up to the deployment.
+ */
+@Service
+@ConditionalOnProperty(name = "slot.coordinator", havingValue = "static")
+public class StaticSlotCoordinator implements SlotCoordinator {
+
+    private final int slot;
+
+    @Autowired
+    public StaticSlotCoordinator(@Value("${slot.static.id:}") String configuredSlot,
+                                 @Value("${slot.static.offset:0}") int offset) throws UnknownHostException {
+        this(configuredSlot, offset, InetAddress.getLocalHost().getHostName());
+    }
+
+    StaticSlotCoordinator(String configuredSlot, int offset, String hostName) {
+        long slot;
+        if (!configuredSlot.isBlank()) {
+            slot = parseSlot(configuredSlot.trim(), "slot.static.id");
+        } else {
+            int separator = hostName.lastIndexOf('-');
+            if (separator < 0) {
+                throw new IllegalArgumentException("slot.static.id is not set and host name " + hostName
+                        + " has no ordinal suffix");
+            }
+            slot = parseSlot(hostName.substring(separator + 1), "host name " + hostName) + offset;
+        }
+
+        if (slot < 0 || slot > IDGeneratorService.MAX_MACHINE_ID) {
+            throw new IllegalArgumentException("Static slot must be between 0 and "
+                    + IDGeneratorService.MAX_MACHINE_ID + ": " + slot);
+        }
+        this.slot = (int) slot;
+    }
+
+    @Override
+    public int getAllocatedSlot() {
+        return slot;
+    }
+
+    private static long parseSlot(String value, String source) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid slot in " + source + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.gendora.services;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import static io.gendora.services.IDGeneratorService.MAX_SEQUENCE_ID;
+
+/**
+ * Keeps the last timestamp and sequence ID behind a single lock. A {@link ReentrantLock} rather
+ * than a monitor, so that a virtual thread waiting for the clock inside the critical section does
+ * not pin its carrier thread.
+ */
+public class SynchronizedSequenceGenerator extends AbstractSequenceGenerator {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long lastTimestamp = -1L;
+    private long sequenceID = 0;
+
+    public SynchronizedSequenceGenerator() {
+        this(new GeneratorClock());
+    }
+
+    public SynchronizedSequenceGenerator(GeneratorClock clock) {
+        super(clock);
+    }
+
+    @Override
+    public long nextId(long machineId) {
+        lock.lock();
+        try {
+            return nextIdLocked(machineId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void nextIds(long machineId, long[] ids) {
+        lock.lock();
+        try {
+            nextIdsLocked(machineId, ids);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long nextIdLocked(long machineId) {
+        long timestamp = clock.currentTimestamp(lastTimestamp);
+
+        if (timestamp == lastTimestamp) {
+            if (sequenceID == MAX_SEQUENCE_ID) {
+                // Sequence overflow, continue in the next millisecond. The clock goes first, so the
+                // state is left as it was if it fails
+                timestamp = clock.nextMillisecond(lastTimestamp);
+                millisecondCompleted(MAX_SEQUENCE_ID);
+                sequenceID = 0;
+            } else {
+                sequenceID++;
+            }
+        } else {
+            if (lastTimestamp != -1L) {
+                millisecondCompleted(sequenceID);
+            }
+            sequenceID = 0;
+        }
+
+        lastTimestamp = timestamp;
+
+        return composeId(timestamp, machineId, sequenceID);
+    }
+
+    private void nextIdsLocked(long machineId, long[] ids) {
+        int generated = 0;
+
+        while (generated < ids.length) {
+            long timestamp = clock.currentTimestamp(lastTimestamp);
+
+            long firstSequenceID = 0;
+            if (timestamp == lastTimestamp) {
+                if (sequenceID >= MAX_SEQUENCE_ID) {
+                    // Sequence space of this millisecond is used up, continue in the next one
+                    timestamp = clock.nextMillisecond(lastTimestamp);
+                    millisecondCompleted(sequenceID);
+                } else {
+                    firstSequenceID = sequenceID + 1;
+                }
+            } else if (lastTimestamp != -1L) {
+                millisecondCompleted(sequenceID);
+            }
+
+            int reserved = (int) Math.min(MAX_SEQUENCE_ID - firstSequenceID + 1, ids.length - generated);
+            long baseId = composeId(timestamp, machineId, 0);
+            for (int i = 0; i < reserved; i++) {
+                ids[generated++] = baseId | (firstSequenceID + i);
+            }
+
+            lastTimestamp = timestamp;
+            sequenceID = firstSequenceID + reserved - 1;
+        }
+    }
+}
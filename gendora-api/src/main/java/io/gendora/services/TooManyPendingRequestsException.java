@@ -0,0 +1,20 @@
+package io.gendora.services;
+
+/**
+ * Thrown when a request would have to wait for an ID while as many requests as allowed are waiting
+ * already, see {@link DeferredIdQueue}.
+ */
+public class TooManyPendingRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyPendingRequestsException(int maxPending, long retryAfterSeconds) {
+        super("Sequence space exhausted with " + maxPending + " requests waiting already, retry in "
+                + retryAfterSeconds + " s", null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
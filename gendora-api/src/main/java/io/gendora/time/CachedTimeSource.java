@@ -0,0 +1,49 @@
+package io.gendora.time;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Caches the time of a delegate source, refreshed by a background thread once per tick, so
+ * reading the time is a single volatile read. Readings can lag the delegate by up to a tick.
+ */
+public class CachedTimeSource implements TimeSource, AutoCloseable {
+
+    private final TimeSource delegate;
+    private final long tickNanos;
+    private final Thread ticker;
+
+    private volatile long currentTimeMillis;
+    private volatile boolean running = true;
+
+    public CachedTimeSource(TimeSource delegate, long tickMicros) {
+        if (tickMicros < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1 microsecond: " + tickMicros);
+        }
+
+        this.delegate = delegate;
+        this.tickNanos = TimeUnit.MICROSECONDS.toNanos(tickMicros);
+        this.currentTimeMillis = delegate.currentTimeMillis();
+        this.ticker = new Thread(this::tick, "cached-time-source-ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private void tick() {
+        while (running) {
+            currentTimeMillis = delegate.currentTimeMillis();
+            LockSupport.parkNanos(tickNanos);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.gendora.time;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Derives the time from {@link System#nanoTime()} anchored to the wall clock, so it never goes
+ * backwards. About once a second the anchor is moved forward to the wall clock if the wall clock
+ * got ahead, which follows NTP slews and forward steps; a wall clock that falls behind (a slew or a
+ * step backwards) is held until it catches up again.
+ */
+public class MonotonicTimeSource implements TimeSource {
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long RESYNC_INTERVAL_NANOS = 1_000_000_000L;
+
+    private record Anchor(long millis, long nanos) {
+    }
+
+    private final AtomicReference<Anchor> anchor;
+
+    public MonotonicTimeSource() {
+        this.anchor = new AtomicReference<>(new Anchor(System.currentTimeMillis(), System.nanoTime()));
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        Anchor current = anchor.get();
+        long elapsedNanos = System.nanoTime() - current.nanos;
+        if (elapsedNanos >= RESYNC_INTERVAL_NANOS) {
+            resync(current, elapsedNanos);
+        }
+        return current.millis + elapsedNanos / NANOS_PER_MILLI;
+    }
+
+    private void resync(Anchor current, long elapsedNanos) {
+        long elapsedMillis = elapsedNanos / NANOS_PER_MILLI;
+        long monotonicMillis = current.millis + elapsedMillis;
+        long wallClockMillis = System.currentTimeMillis();
+
+        // The new anchor stays on the old anchor's millisecond grid, so readings based on either
+        // anchor round to the same millisecond and can never be smaller after the switch
+        Anchor resynced = new Anchor(
+                Math.max(monotonicMillis, wallClockMillis),
+                current.nanos + elapsedMillis * NANOS_PER_MILLI);
+        anchor.compareAndSet(current, resynced);
+    }
+}
@@ -0,0 +1,10 @@
+package io.gendora.time;
+
+/**
+ * Source of the current time in milliseconds since the Unix epoch used by the ID generators.
+ */
+@FunctionalInterface
+public interface TimeSource {
+
+    long currentTimeMillis();
+}
@@ -0,0 +1,12 @@
+package io.gendora.time;
+
+/**
+ * Reads the system wall clock, which follows NTP adjustments and may therefore jump backwards.
+ */
+public class WallClockTimeSource implements TimeSource {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
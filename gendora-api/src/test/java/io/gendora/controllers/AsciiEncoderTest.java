@@ -0,0 +1,25 @@
+package io.gendora.controllers;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsciiEncoderTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0L, 7L, 9L, 10L, 99L, 100L, 1234567890123456789L, 999999999999999999L, Long.MAX_VALUE})
+    void shouldWriteSameDigitsAsLongToString(long value) {
+        // Given
+        byte[] buffer = new byte[24];
+        buffer[0] = 'x';
+
+        // When
+        int end = AsciiEncoder.writeLong(value, buffer, 1);
+
+        // Then
+        assertEquals("x" + value, new String(buffer, 0, end, StandardCharsets.US_ASCII));
+    }
+}
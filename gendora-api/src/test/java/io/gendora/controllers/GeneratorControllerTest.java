@@ -1,5 +1,6 @@
 package io.gendora.controllers;
 
+import io.gendora.services.ClockMovedBackwardsException;
 import io.gendora.services.IDGeneratorService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,13 +8,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @WebMvcTest(GeneratorController.class)
 class GeneratorControllerTest {
@@ -28,16 +38,12 @@ class GeneratorControllerTest {
     void shouldGenerateIdSuccessfullyWithMetadata() throws Exception {
         // Given
         long generatedId = 1234567890L;
-        Map<String, Object> metadata = Map.of(
-                "timestampDelta", 1234L,
-                "epoch", 1759276800000L,
-                "machineID", 42,
-                "sequenceID", 10,
-                "algorithm", "snowflake"
-        );
 
         when(idGeneratorService.generateId()).thenReturn(generatedId);
-        when(idGeneratorService.getMetadata(anyLong())).thenReturn(metadata);
+        when(idGeneratorService.getTimestampDelta(generatedId)).thenReturn(1234L);
+        when(idGeneratorService.getEpoch()).thenReturn(1759276800000L);
+        when(idGeneratorService.getMachineId(generatedId)).thenReturn(42L);
+        when(idGeneratorService.getSequenceId(generatedId)).thenReturn(10L);
 
         // When & Then
         mockMvc.perform(post("/generator/ids")
@@ -46,11 +52,12 @@ class GeneratorControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id").value(Long.toString(generatedId)))
-                .andExpect(jsonPath("$.metadata.timestampDelta").value(1234L))
-                .andExpect(jsonPath("$.metadata.epoch").value(1759276800000L))
+                .andExpect(jsonPath("$.metadata.timestampDelta").value("1234"))
+                .andExpect(jsonPath("$.metadata.epoch").value("1759276800000"))
                 .andExpect(jsonPath("$.metadata.machineID").value(42))
                 .andExpect(jsonPath("$.metadata.sequenceID").value(10))
-                .andExpect(jsonPath("$.metadata.algorithm").value("snowflake"));
+                .andExpect(jsonPath("$.metadata.algorithm").value("snowflake"))
+                .andExpect(jsonPath("$.metadata.layout").value("43/0/10/10"));
     }
 
     @Test
@@ -85,5 +92,237 @@ class GeneratorControllerTest {
                 .andExpect(jsonPath("$.id").value(Long.toString(generatedId)))
                 .andExpect(jsonPath("$.metadata").doesNotExist());
     }
-}
 
+    @Test
+    void shouldGenerateIdFromNamespace() throws Exception {
+        // Given
+        long generatedId = 1234567890L;
+
+        when(idGeneratorService.generateId("orders")).thenReturn(generatedId);
+
+        // When & Then
+        mockMvc.perform(post("/generator/ids")
+                        .param("namespace", "orders")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(Long.toString(generatedId)));
+    }
+
+    @Test
+    void shouldRejectNamespaceWhenNamespacesAreDisabled() throws Exception {
+        // Given
+        when(idGeneratorService.generateId("orders"))
+                .thenThrow(new IllegalArgumentException("Namespaces are not enabled (generator.namespaces.bits=0): orders"));
+
+        // When & Then
+        mockMvc.perform(post("/generator/ids")
+                        .param("namespace", "orders")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Namespaces are not enabled (generator.namespaces.bits=0): orders"));
+    }
+
+    @Test
+    void shouldGenerateBatchOfIdsSuccessfully() throws Exception {
+        // Given
+        long[] generatedIds = {1234567890L, 1234567891L, 1234567892L};
+
+        when(idGeneratorService.generateIds(3)).thenReturn(generatedIds);
+
+        // When & Then
+        mockMvc.perform(post("/generator/ids")
+                        .param("count", "3")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.ids.length()").value(3))
+                .andExpect(jsonPath("$.ids[0]").value("1234567890"))
+                .andExpect(jsonPath("$.ids[1]").value("1234567891"))
+                .andExpect(jsonPath("$.ids[2]").value("1234567892"))
+                .andExpect(jsonPath("$.id").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectInvalidBatchCount() throws Exception {
+        // Given
+        when(idGeneratorService.generateIds(anyInt()))
+                .thenThrow(new IllegalArgumentException("Count must be between 1 and 10000: 0"));
+
+        // When & Then
+        mockMvc.perform(post("/generator/ids")
+                        .param("count", "0")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Count must be between 1 and 10000: 0"));
+    }
+
+    @Test
+    void shouldReturnServiceUnavailableWhenClockMovedBackwards() throws Exception {
+        // Given
+        when(idGeneratorService.generateId()).thenThrow(new ClockMovedBackwardsException(1500));
+
+        // When & Then
+        mockMvc.perform(post("/generator/ids")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.error").value("Clock moved backwards. Refusing to generate id for 1500 milliseconds"));
+    }
+
+    @Test
+    void shouldStreamIdsAsBigEndianLongs() throws Exception {
+        // Given
+        fillBatchesWithConsecutiveIds(1000L);
+
+        // When
+        MvcResult result = mockMvc.perform(post("/generator/ids/stream")
+                        .param("count", "1500")
+                        .param("format", "binary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        assertEquals(1500 * Long.BYTES, body.length);
+        for (int i = 0; i < 1500; i++) {
+            assertEquals(1000L + i, buffer.getLong());
+        }
+    }
+
+    @Test
+    void shouldStreamIdsAsNdjson() throws Exception {
+        // Given
+        fillBatchesWithConsecutiveIds(1234567890L);
+
+        // When
+        MvcResult result = mockMvc.perform(post("/generator/ids/stream")
+                        .param("count", "3")
+                        .param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("\"1234567890\"\n\"1234567891\"\n\"1234567892\"\n"));
+    }
+
+    @Test
+    void shouldRejectUnknownStreamFormat() throws Exception {
+        mockMvc.perform(post("/generator/ids/stream")
+                        .param("count", "3")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown format: xml (expected one of: binary, text, ndjson)"));
+    }
+
+    @Test
+    void shouldRejectInvalidStreamCount() throws Exception {
+        mockMvc.perform(post("/generator/ids/stream")
+                        .param("count", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Count must be between 1 and 100000000: 0"));
+    }
+
+    @Test
+    void shouldRejectStreamsPastMaximumConcurrent() throws Exception {
+        // Given two streams held up generating IDs
+        CountDownLatch generating = new CountDownLatch(2);
+        CountDownLatch finish = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            generating.countDown();
+            finish.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(idGeneratorService).generateIds(any(long[].class));
+        MvcResult first = mockMvc.perform(post("/generator/ids/stream").param("count", "1")).andReturn();
+        MvcResult second = mockMvc.perform(post("/generator/ids/stream").param("count", "1")).andReturn();
+        generating.await(5, TimeUnit.SECONDS);
+
+        // When & Then
+        mockMvc.perform(post("/generator/ids/stream")
+                        .param("count", "1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error").value("Already streaming IDs to 2 clients, retry in 1 s"));
+
+        // And once they are done
+        finish.countDown();
+        mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+        mockMvc.perform(asyncDispatch(second)).andExpect(status().isOk());
+        fillBatchesWithConsecutiveIds(1L);
+        MvcResult third = mockMvc.perform(post("/generator/ids/stream").param("count", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(third)).andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldDecodeIds() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/generator/ids/decode")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"1234601900025866\",\"1048576\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids.length()").value(2))
+                .andExpect(jsonPath("$.ids[0].id").value("1234601900025866"))
+                .andExpect(jsonPath("$.ids[0].timestamp").value("1763132608123"))
+                .andExpect(jsonPath("$.ids[0].timestampDelta").value("1177408123"))
+                .andExpect(jsonPath("$.ids[0].machineID").value(42))
+                .andExpect(jsonPath("$.ids[0].sequenceID").value(10))
+                .andExpect(jsonPath("$.ids[1].timestampDelta").value("1"))
+                .andExpect(jsonPath("$.ids[1].machineID").value(0))
+                .andExpect(jsonPath("$.ids[1].sequenceID").value(0));
+    }
+
+    @Test
+    void shouldRejectInvalidIdsToDecode() throws Exception {
+        mockMvc.perform(post("/generator/ids/decode")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"abc\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid id: abc"));
+
+        mockMvc.perform(post("/generator/ids/decode")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Number of ids must be between 1 and 100000: 0"));
+    }
+
+    @Test
+    void shouldReturnIdRangeForTimeWindow() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/generator/ids/range")
+                        .param("from", "1763132600000")
+                        .param("to", "1763132699999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.minId").value("1234593382400000"))
+                .andExpect(jsonPath("$.maxId").value("1234698239999999"));
+    }
+
+    @Test
+    void shouldRejectInvalidTimeWindow() throws Exception {
+        mockMvc.perform(get("/generator/ids/range")
+                        .param("from", "1763132699999")
+                        .param("to", "1763132600000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Time window start is after its end: 1763132699999 > 1763132600000"));
+    }
+
+    private void fillBatchesWithConsecutiveIds(long firstId) {
+        long[] nextId = {firstId};
+        doAnswer(invocation -> {
+            long[] ids = invocation.getArgument(0);
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = nextId[0]++;
+            }
+            return null;
+        }).when(idGeneratorService).generateIds(any(long[].class));
+    }
+}
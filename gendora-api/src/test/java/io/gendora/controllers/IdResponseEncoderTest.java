@@ -0,0 +1,125 @@
+package io.gendora.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdResponseEncoderTest {
+
+    private static final long EPOCH = 1761955200000L;
+
+    @Test
+    void shouldEncodeIdResponse() {
+        // Given
+        IdResponseEncoder encoder = IdResponseEncoder.forCurrentThread();
+
+        // When
+        int length = encoder.writeId(1234567890L);
+
+        // Then
+        assertEquals("{\"id\":\"1234567890\"}", decode(encoder, length));
+    }
+
+    @Test
+    void shouldEncodeIdResponseWithMetadata() {
+        // Given
+        IdResponseEncoder encoder = IdResponseEncoder.forCurrentThread();
+
+        // When
+        int length = encoder.writeIdWithMetadata(1234567890L, 1177L, EPOCH, 0L, 42L, 10L);
+
+        // Then
+        assertEquals("{\"id\":\"1234567890\",\"metadata\":{\"timestampDelta\":\"1177\",\"epoch\":\"1761955200000\","
+                + "\"machineID\":42,\"sequenceID\":10,\"algorithm\":\"snowflake\",\"layout\":\"43/0/10/10\"}}",
+                decode(encoder, length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0L, 1L, 1048575L, 1234567890L, Long.MAX_VALUE})
+    void shouldMatchJacksonEncodingOfResponseMaps(long id) throws Exception {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper();
+        IdResponseEncoder encoder = IdResponseEncoder.forCurrentThread();
+        long timestampDelta = id >>> 20;
+        long machineId = (id >> 10) & 1023;
+        long sequenceId = id & 1023;
+
+        // When
+        String idOnly = decode(encoder, encoder.writeId(id));
+        String withMetadata = decode(encoder, encoder.writeIdWithMetadata(id, timestampDelta, EPOCH, 0L, machineId, sequenceId));
+
+        // Then
+        assertEquals(objectMapper.writeValueAsString(ImmutableMap.of("id", Long.toString(id))), idOnly);
+        assertEquals(objectMapper.writeValueAsString(ImmutableMap.of(
+                "id", Long.toString(id),
+                "metadata", ImmutableMap.of(
+                        "timestampDelta", Long.toString(timestampDelta),
+                        "epoch", Long.toString(EPOCH),
+                        "machineID", machineId,
+                        "sequenceID", sequenceId,
+                        "algorithm", "snowflake",
+                        "layout", "43/0/10/10"
+                )
+        )), withMetadata);
+    }
+
+    @Test
+    void shouldReuseBufferPerThread() throws Exception {
+        // Given
+        IdResponseEncoder encoder = IdResponseEncoder.forCurrentThread();
+        IdResponseEncoder[] otherThreadEncoder = new IdResponseEncoder[1];
+
+        // When
+        Thread thread = new Thread(() -> otherThreadEncoder[0] = IdResponseEncoder.forCurrentThread());
+        thread.start();
+        thread.join();
+
+        // Then
+        assertSame(encoder, IdResponseEncoder.forCurrentThread());
+        assertSame(encoder.buffer(), IdResponseEncoder.forCurrentThread().buffer());
+        assertTrue(encoder != otherThreadEncoder[0]);
+    }
+
+    @Test
+    void shouldNotAllocatePerResponse() {
+        // Given
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        int iterations = 1_000_000;
+        long checksum = encode(iterations);
+
+        // When
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        checksum += encode(iterations);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // Then
+        assertTrue(checksum > 0);
+        assertTrue(allocated < 1024,
+                "Encoding " + iterations + " responses allocated " + allocated + " bytes");
+    }
+
+    private static long encode(int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            IdResponseEncoder encoder = IdResponseEncoder.forCurrentThread();
+            long id = 1234567890L + i;
+            checksum += encoder.writeId(id);
+            checksum += encoder.writeIdWithMetadata(id, id >>> 20, EPOCH, 0L, (id >> 10) & 1023, id & 1023);
+        }
+        return checksum;
+    }
+
+    private static String decode(IdResponseEncoder encoder, int length) {
+        return new String(encoder.buffer(), 0, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,140 @@
+package io.gendora.protocol;
+
+import io.gendora.client.IdProtocolClient;
+import io.gendora.client.IdProtocolException;
+import io.gendora.services.IDGeneratorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class IdProtocolServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private IDGeneratorService idGeneratorService;
+    private IdProtocolServer idProtocolServer;
+
+    @BeforeEach
+    void setUp() {
+        idGeneratorService = mock(IDGeneratorService.class);
+        AtomicLong nextId = new AtomicLong(1000);
+        doAnswer(invocation -> {
+            long[] ids = invocation.getArgument(0);
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = nextId.getAndIncrement();
+            }
+            return null;
+        }).when(idGeneratorService).generateIds(any(long[].class));
+
+        idProtocolServer = new IdProtocolServer(idGeneratorService, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idProtocolServer.close();
+    }
+
+    @Test
+    void shouldServeIdsOverTcp() throws Exception {
+        // Given
+        InetSocketAddress address = (InetSocketAddress) idProtocolServer.bindTcp(new InetSocketAddress("127.0.0.1", 0));
+
+        try (IdProtocolClient client = IdProtocolClient.connect("127.0.0.1", address.getPort())) {
+            // When
+            long id = client.nextId();
+            long[] ids = client.nextIds(3);
+
+            // Then
+            assertEquals(1000, id);
+            assertArrayEquals(new long[]{1001, 1002, 1003}, ids);
+        }
+    }
+
+    @Test
+    void shouldServeIdsOverUnixDomainSocket() throws Exception {
+        // Given
+        Path socket = tempDir.resolve("gendora.sock");
+        idProtocolServer.bindUnix(socket);
+
+        try (IdProtocolClient client = IdProtocolClient.connect(socket)) {
+            // When
+            long[] ids = client.nextIds(2);
+
+            // Then
+            assertArrayEquals(new long[]{1000, 1001}, ids);
+        }
+
+        idProtocolServer.close();
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void shouldAnswerPipelinedRequestsInOrder() throws Exception {
+        // Given
+        InetSocketAddress address = (InetSocketAddress) idProtocolServer.bindTcp(new InetSocketAddress("127.0.0.1", 0));
+        int[] counts = new int[200];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = i % 5 + 1;
+        }
+
+        try (IdProtocolClient client = IdProtocolClient.connect("127.0.0.1", address.getPort())) {
+            // When
+            long[][] batches = client.nextIdBatches(counts);
+
+            // Then
+            long expectedId = 1000;
+            for (int i = 0; i < counts.length; i++) {
+                assertEquals(counts[i], batches[i].length);
+                for (long id : batches[i]) {
+                    assertEquals(expectedId++, id);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidCountAndKeepConnectionUsable() throws Exception {
+        // Given
+        InetSocketAddress address = (InetSocketAddress) idProtocolServer.bindTcp(new InetSocketAddress("127.0.0.1", 0));
+
+        try (IdProtocolClient client = IdProtocolClient.connect("127.0.0.1", address.getPort())) {
+            // When
+            IdProtocolException exception = assertThrows(IdProtocolException.class, () -> client.nextIds(101));
+
+            // Then
+            assertEquals(IdProtocolServer.ERROR_INVALID_COUNT, exception.getErrorCode());
+            assertEquals(1000, client.nextId());
+        }
+    }
+
+    @Test
+    void shouldReportGenerationFailures() throws Exception {
+        // Given
+        InetSocketAddress address = (InetSocketAddress) idProtocolServer.bindTcp(new InetSocketAddress("127.0.0.1", 0));
+        doThrow(new IllegalStateException("No slot allocated")).when(idGeneratorService).generateIds(any(long[].class));
+
+        try (IdProtocolClient client = IdProtocolClient.connect("127.0.0.1", address.getPort())) {
+            // When
+            IdProtocolException exception = assertThrows(IdProtocolException.class, client::nextId);
+
+            // Then
+            assertEquals(IdProtocolServer.ERROR_UNAVAILABLE, exception.getErrorCode());
+        }
+    }
+}
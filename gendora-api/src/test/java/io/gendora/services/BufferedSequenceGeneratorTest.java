@@ -0,0 +1,158 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferedSequenceGeneratorTest {
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        GeneratorClock clock = new GeneratorClock();
+        SequenceGenerator delegate = new LockFreeSequenceGenerator(clock);
+
+        assertThrows(IllegalArgumentException.class, () -> new BufferedSequenceGenerator(delegate, clock, 1000, 10, 50));
+        assertThrows(IllegalArgumentException.class, () -> new BufferedSequenceGenerator(delegate, clock, 1024, 1024, 50));
+        assertThrows(IllegalArgumentException.class, () -> new BufferedSequenceGenerator(delegate, clock, 1024, 10, 0));
+    }
+
+    @Test
+    void shouldServeIdsFromBufferOnceFilled() throws Exception {
+        // Given
+        GeneratorClock clock = new GeneratorClock();
+        try (BufferedSequenceGenerator sequenceGenerator =
+                     new BufferedSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, 1024, 256, 1000)) {
+            sequenceGenerator.nextId(3);
+            awaitFillLevel(sequenceGenerator, 1024);
+
+            // When
+            long previous = sequenceGenerator.nextId(3);
+            for (int i = 0; i < 500; i++) {
+                long id = sequenceGenerator.nextId(3);
+
+                // Then
+                assertTrue(id > previous);
+                assertEquals(3, (id >> IDGeneratorService.MACHINE_ID_SHIFT) & IDGeneratorService.MAX_MACHINE_ID);
+                previous = id;
+            }
+            assertEquals(0, sequenceGenerator.getMissCount());
+            assertTrue(sequenceGenerator.getRefillCount() > 0);
+        }
+    }
+
+    @Test
+    void shouldDiscardStaleIds() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(IDGeneratorService.EPOCH + 1_000_000);
+        GeneratorClock clock = new GeneratorClock(now::get, 10, GeneratorClock.BackwardsPolicy.FAIL, 0);
+        try (BufferedSequenceGenerator sequenceGenerator =
+                     new BufferedSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, 1024, 256, 50)) {
+            sequenceGenerator.nextId(0);
+            awaitFillLevel(sequenceGenerator, 1024);
+
+            // When
+            now.addAndGet(100);
+            long id = sequenceGenerator.nextId(0);
+
+            // Then
+            long timestamp = (id >> IDGeneratorService.TIMESTAMP_SHIFT) + IDGeneratorService.EPOCH;
+            assertTrue(timestamp >= now.get() - 50);
+            assertTrue(sequenceGenerator.getDiscardedCount() > 0);
+        }
+    }
+
+    @Test
+    void shouldStopRefillingOnceAWholeRingWentStaleUntilIdsAreAskedFor() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(IDGeneratorService.EPOCH + 1_000_000);
+        GeneratorClock clock = new GeneratorClock(now::get, 10, GeneratorClock.BackwardsPolicy.FAIL, 0);
+        try (BufferedSequenceGenerator sequenceGenerator =
+                     new BufferedSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, 1024, 256, 50)) {
+            sequenceGenerator.nextId(0);
+            awaitFillLevel(sequenceGenerator, 1024);
+            long refills = sequenceGenerator.getRefillCount();
+
+            // When no IDs are asked for while the ring goes stale, twice
+            now.addAndGet(100);
+            awaitDiscardedCount(sequenceGenerator, 1024);
+            Thread.sleep(20);
+            now.addAndGet(100);
+            Thread.sleep(20);
+
+            // Then
+            assertEquals(0, sequenceGenerator.getFillLevel());
+            assertEquals(1024, sequenceGenerator.getDiscardedCount());
+            assertEquals(refills, sequenceGenerator.getRefillCount());
+
+            // When an ID is asked for again
+            sequenceGenerator.nextId(0);
+
+            // Then
+            assertEquals(1, sequenceGenerator.getMissCount());
+            awaitFillLevel(sequenceGenerator, 1024);
+        }
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsAcrossThreads() throws Exception {
+        // Given
+        GeneratorClock clock = new GeneratorClock();
+        int threads = 16;
+        int idsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try (BufferedSequenceGenerator sequenceGenerator =
+                     new BufferedSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, 4096, 1024, 50)) {
+            // When
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] ids = new long[idsPerThread];
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids[i] = sequenceGenerator.nextId(0);
+                    }
+                    return ids;
+                }));
+            }
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long id : future.get()) {
+                    ids.add(id);
+                }
+            }
+
+            // Then
+            assertEquals(threads * idsPerThread, ids.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitFillLevel(BufferedSequenceGenerator sequenceGenerator, long fillLevel) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sequenceGenerator.getFillLevel() < fillLevel && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(fillLevel, sequenceGenerator.getFillLevel());
+    }
+
+    private static void awaitDiscardedCount(BufferedSequenceGenerator sequenceGenerator, long discardedCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sequenceGenerator.getDiscardedCount() < discardedCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(discardedCount, sequenceGenerator.getDiscardedCount());
+    }
+}
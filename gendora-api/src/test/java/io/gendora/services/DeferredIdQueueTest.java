@@ -0,0 +1,166 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeferredIdQueueTest {
+
+    private final AtomicLong now = new AtomicLong(IDGeneratorService.EPOCH + 1_000_000);
+    private final IDGeneratorService idGeneratorService = new IDGeneratorService(
+            () -> 3, new SynchronizedSequenceGenerator(new GeneratorClock(now::get)), 10_000);
+    private DeferredIdQueue deferredIdQueue;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (deferredIdQueue != null) {
+            // Lets the completer get past requests still waiting for the next millisecond
+            now.addAndGet(10);
+            deferredIdQueue.close();
+        }
+    }
+
+    private void exhaustSequenceSpace() {
+        for (int i = 0; i <= IDGeneratorService.MAX_SEQUENCE_ID; i++) {
+            assertNotEquals(DeferredIdQueue.NO_ID, deferredIdQueue.tryGenerateId(null));
+        }
+    }
+
+    @Test
+    void shouldGenerateIdsAtOnceUntilSequenceSpaceIsExhausted() {
+        // Given
+        deferredIdQueue = new DeferredIdQueue(idGeneratorService, 10, 1000, 1);
+        exhaustSequenceSpace();
+
+        // When
+        long id = deferredIdQueue.tryGenerateId(null);
+
+        // Then
+        assertEquals(DeferredIdQueue.NO_ID, id);
+        assertEquals(0, deferredIdQueue.getDeferredCount());
+    }
+
+    @Test
+    void shouldCompleteParkedRequestsInOrderOnceNextMillisecondOpens() throws Exception {
+        // Given
+        deferredIdQueue = new DeferredIdQueue(idGeneratorService, 10, 5000, 1);
+        exhaustSequenceSpace();
+        List<CompletableFuture<Long>> parked = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            parked.add(deferredIdQueue.defer(null));
+        }
+
+        // When
+        now.incrementAndGet();
+
+        // Then
+        long previous = 0;
+        for (CompletableFuture<Long> result : parked) {
+            long id = result.get(5, TimeUnit.SECONDS);
+            assertTrue(id > previous);
+            assertEquals(now.get() - IDGeneratorService.EPOCH, id >> IDGeneratorService.TIMESTAMP_SHIFT);
+            previous = id;
+        }
+        assertEquals(3, deferredIdQueue.getDeferredCount());
+    }
+
+    @Test
+    void shouldParkNewRequestsBehindParkedOnes() {
+        // Given
+        deferredIdQueue = new DeferredIdQueue(idGeneratorService, 10, 1000, 1);
+        exhaustSequenceSpace();
+        deferredIdQueue.defer(null);
+        deferredIdQueue.defer(null);
+
+        // When the sequence space would allow a new ID again
+        long id = deferredIdQueue.tryGenerateId(null);
+
+        // Then the request still has to queue up, as the completer is working off the others
+        assertEquals(DeferredIdQueue.NO_ID, id);
+    }
+
+    @Test
+    void shouldParkNewRequestsBehindTheOneBeingCompleted() throws Exception {
+        // Given
+        deferredIdQueue = new DeferredIdQueue(idGeneratorService, 10, 1000, 1);
+        exhaustSequenceSpace();
+        deferredIdQueue.defer(null);
+
+        // When the completer took the request off the queue and waits for the next millisecond
+        long deadline = System.currentTimeMillis() + 5000;
+        while (deferredIdQueue.getQueuedCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        long id = deferredIdQueue.tryGenerateId(null);
+
+        // Then
+        assertEquals(DeferredIdQueue.NO_ID, id);
+        assertEquals(1, deferredIdQueue.getPendingCount());
+    }
+
+    @Test
+    void shouldNotHoldGeneratorWhileWaitingForNextMillisecond() throws Exception {
+        // Given
+        deferredIdQueue = new DeferredIdQueue(idGeneratorService, 10, 1000, 1);
+        exhaustSequenceSpace();
+        deferredIdQueue.defer(null);
+
+        // When the completer waits for the next millisecond
+        long deadline = System.currentTimeMillis() + 5000;
+        while (deferredIdQueue.getQueuedCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(20);
+
+        // Then other callers still get through to the generator
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(SequenceExhaustedException.class, () -> idGeneratorService.generateIdWithoutWaiting(null)));
+    }
+
+    @Test
+    void shouldRejectRequestsPastMaximumPending() {
+        // Given one request held by the completer, one parked
+        deferredIdQueue = new DeferredIdQueue(idGeneratorService, 1, 1000, 7);
+        exhaustSequenceSpace();
+        deferredIdQueue.defer(null);
+
+        // When
+        TooManyPendingRequestsException rejected = assertThrows(TooManyPendingRequestsException.class, () -> {
+            deferredIdQueue.defer(null);
+            deferredIdQueue.defer(null);
+        });
+
+        // Then
+        assertEquals(7, rejected.getRetryAfterSeconds());
+        assertEquals(1, deferredIdQueue.getRejectedCount());
+    }
+
+    @Test
+    void shouldTimeOutParkedRequests() {
+        // Given
+        deferredIdQueue = new DeferredIdQueue(idGeneratorService, 10, 50, 1);
+        exhaustSequenceSpace();
+
+        // When the clock does not move on
+        CompletableFuture<Long> result = deferredIdQueue.defer(null);
+
+        // Then
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+    }
+}
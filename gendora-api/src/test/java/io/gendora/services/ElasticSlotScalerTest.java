@@ -0,0 +1,126 @@
+package io.gendora.services;
+
+import io.gendora.time.WallClockTimeSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ElasticSlotScalerTest {
+
+    private static class ScalableSlotCoordinator implements SlotCoordinator {
+        int slotCount = 1;
+
+        @Override
+        public int getAllocatedSlot() {
+            return 0;
+        }
+
+        @Override
+        public int getSlotCount() {
+            return slotCount;
+        }
+
+        @Override
+        public void requestSlotCount(int slotCount) {
+            this.slotCount = slotCount;
+        }
+    }
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final GeneratorMetrics metrics = new GeneratorMetrics();
+    private final ScalableSlotCoordinator slotCoordinator = new ScalableSlotCoordinator();
+
+    @Test
+    void shouldClaimSlotAfterSustainedExhaustion() {
+        // Given
+        ElasticSlotScaler scaler = newScaler(3);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            checkAfterOneSecond(scaler, true);
+        }
+        int slotsBeforeSustained = slotCoordinator.slotCount;
+        checkAfterOneSecond(scaler, true);
+
+        // Then
+        assertEquals(1, slotsBeforeSustained);
+        assertEquals(2, slotCoordinator.slotCount);
+        scaler.cleanup();
+    }
+
+    @Test
+    void shouldNotClaimSlotForInterruptedExhaustion() {
+        // Given
+        ElasticSlotScaler scaler = newScaler(3);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            checkAfterOneSecond(scaler, i % 3 != 0);
+        }
+
+        // Then
+        assertEquals(1, slotCoordinator.slotCount);
+        scaler.cleanup();
+    }
+
+    @Test
+    void shouldNotClaimMoreThanMaximumSlots() {
+        // Given
+        ElasticSlotScaler scaler = newScaler(2);
+
+        // When
+        for (int i = 0; i < 60; i++) {
+            checkAfterOneSecond(scaler, true);
+        }
+
+        // Then
+        assertEquals(2, slotCoordinator.slotCount);
+        scaler.cleanup();
+    }
+
+    @Test
+    void shouldGiveBackSlotAfterCoolDown() {
+        // Given
+        ElasticSlotScaler scaler = newScaler(3);
+        slotCoordinator.slotCount = 3;
+        checkAfterOneSecond(scaler, true);
+
+        // When
+        for (int i = 0; i < 299; i++) {
+            checkAfterOneSecond(scaler, false);
+        }
+        int slotsBeforeCoolDown = slotCoordinator.slotCount;
+        checkAfterOneSecond(scaler, false);
+
+        // Then
+        assertEquals(3, slotsBeforeCoolDown);
+        assertEquals(2, slotCoordinator.slotCount);
+        scaler.cleanup();
+    }
+
+    private void checkAfterOneSecond(ElasticSlotScaler scaler, boolean exhausted) {
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        if (exhausted) {
+            metrics.recordSequenceOverflow();
+        }
+        scaler.check();
+    }
+
+    private ElasticSlotScaler newScaler(int maxSlots) {
+        ElasticSlotScaler scaler = new ElasticSlotScaler();
+        ReflectionTestUtils.setField(scaler, "maxSlots", maxSlots);
+        ReflectionTestUtils.setField(scaler, "checkIntervalMillis", 60_000L);
+        ReflectionTestUtils.setField(scaler, "scaleUpAfterMillis", 5_000L);
+        ReflectionTestUtils.setField(scaler, "coolDownMillis", 300_000L);
+        ReflectionTestUtils.setField(scaler, "slotCoordinator", slotCoordinator);
+        ReflectionTestUtils.setField(scaler, "generatorClock",
+                new GeneratorClock(new WallClockTimeSource(), 0, GeneratorClock.BackwardsPolicy.FAIL, 0, metrics));
+        scaler.nanoClock = nanoTime::get;
+        scaler.init();
+        return scaler;
+    }
+}
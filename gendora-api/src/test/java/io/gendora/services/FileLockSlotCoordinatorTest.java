@@ -0,0 +1,67 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileLockSlotCoordinatorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldClaimDistinctSlots() throws Exception {
+        // When
+        FileLockSlotCoordinator first = new FileLockSlotCoordinator(directory, 10, 2);
+        FileLockSlotCoordinator second = new FileLockSlotCoordinator(directory, 10, 2);
+
+        // Then
+        assertEquals(10, first.getAllocatedSlot());
+        assertEquals(11, second.getAllocatedSlot());
+        assertThrows(IllegalStateException.class, () -> new FileLockSlotCoordinator(directory, 10, 2));
+
+        first.release();
+        second.release();
+    }
+
+    @Test
+    void shouldReuseReleasedSlot() throws Exception {
+        // Given
+        FileLockSlotCoordinator first = new FileLockSlotCoordinator(directory, 0, 1024);
+        FileLockSlotCoordinator second = new FileLockSlotCoordinator(directory, 0, 1024);
+
+        // When
+        first.release();
+        FileLockSlotCoordinator third = new FileLockSlotCoordinator(directory, 0, 1024);
+
+        // Then
+        assertEquals(0, third.getAllocatedSlot());
+        assertEquals(1, second.getAllocatedSlot());
+
+        second.release();
+        third.release();
+    }
+
+    @Test
+    void shouldRejectInvalidSlotRange() {
+        assertThrows(IllegalArgumentException.class, () -> new FileLockSlotCoordinator(directory, 1000, 100));
+        assertThrows(IllegalArgumentException.class, () -> new FileLockSlotCoordinator(directory, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> new FileLockSlotCoordinator(directory, 1024, 0));
+    }
+
+    @Test
+    void shouldClaimUpToLastSlotOfLayoutWithoutSlotCount() throws Exception {
+        // Given
+        FileLockSlotCoordinator first = new FileLockSlotCoordinator(directory, 1023, 0);
+
+        // When & Then
+        assertEquals(1023, first.getAllocatedSlot());
+        assertThrows(IllegalStateException.class, () -> new FileLockSlotCoordinator(directory, 1023, 0));
+
+        first.release();
+    }
+}
@@ -0,0 +1,99 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneratorClockTest {
+
+    private static final long NOW = IDGeneratorService.EPOCH + 1_000_000;
+
+    @Test
+    void shouldFailWhenClockMovedBackwardsWithFailPolicy() {
+        // Given
+        GeneratorClock clock = new GeneratorClock(() -> NOW, 0, GeneratorClock.BackwardsPolicy.FAIL, 1000);
+
+        // When
+        ClockMovedBackwardsException exception =
+                assertThrows(ClockMovedBackwardsException.class, () -> clock.currentTimestamp(NOW + 10));
+
+        // Then
+        assertEquals(10, exception.getBackwardsMillis());
+    }
+
+    @Test
+    void shouldContinueFromLastTimestampWithBorrowPolicy() {
+        // Given
+        GeneratorClock clock = new GeneratorClock(() -> NOW, 0, GeneratorClock.BackwardsPolicy.BORROW, 100);
+
+        // When & Then
+        assertEquals(NOW + 10, clock.currentTimestamp(NOW + 10));
+        assertEquals(NOW + 11, clock.nextMillisecond(NOW + 10));
+        assertThrows(ClockMovedBackwardsException.class, () -> clock.currentTimestamp(NOW + 101));
+    }
+
+    @Test
+    void shouldWaitForClockToCatchUpWithWaitPolicy() {
+        // Given
+        AtomicLong reads = new AtomicLong();
+        // The clock advances one millisecond per read
+        GeneratorClock clock = new GeneratorClock(() -> NOW + reads.getAndIncrement(), 0,
+                GeneratorClock.BackwardsPolicy.WAIT, 100);
+
+        // When
+        long timestamp = clock.currentTimestamp(NOW + 5);
+
+        // Then
+        assertEquals(NOW + 5, timestamp);
+        assertEquals(6, reads.get());
+    }
+
+    @Test
+    void shouldFailWhenClockMovedBackwardsFurtherThanAllowedWithWaitPolicy() {
+        // Given
+        GeneratorClock clock = new GeneratorClock(() -> NOW, 0, GeneratorClock.BackwardsPolicy.WAIT, 100);
+
+        // When & Then
+        assertThrows(ClockMovedBackwardsException.class, () -> clock.currentTimestamp(NOW + 101));
+    }
+
+    @Test
+    void shouldNotTreatBorrowedMillisecondsAsClockMovingBackwards() {
+        // Given
+        GeneratorClock clock = new GeneratorClock(() -> NOW, 50, GeneratorClock.BackwardsPolicy.FAIL, 0);
+
+        // When & Then
+        assertEquals(NOW + 50, clock.currentTimestamp(NOW + 50));
+        assertEquals(NOW + 50, clock.nextMillisecond(NOW + 49));
+        assertThrows(ClockMovedBackwardsException.class, () -> clock.currentTimestamp(NOW + 51));
+    }
+
+    @Test
+    void shouldRecordOverflowWaitsAndClockMovingBackwards() {
+        // Given
+        AtomicLong reads = new AtomicLong();
+        // The clock advances one millisecond every other read
+        GeneratorMetrics metrics = new GeneratorMetrics();
+        GeneratorClock clock = new GeneratorClock(() -> NOW + reads.getAndIncrement() / 2, 0,
+                GeneratorClock.BackwardsPolicy.FAIL, 0, metrics);
+
+        // When
+        long next = clock.nextMillisecond(NOW);
+        assertThrows(ClockMovedBackwardsException.class, () -> clock.currentTimestamp(NOW + 20));
+        assertThrows(ClockMovedBackwardsException.class, () -> clock.currentTimestamp(NOW + 10));
+
+        // Then
+        assertEquals(NOW + 1, next);
+        assertEquals(1, metrics.getSequenceOverflowCount());
+        assertEquals(1, metrics.getOverflowWaitCount());
+        assertTrue(metrics.getOverflowWaitNanos() > 0);
+        assertEquals(metrics.getOverflowWaitNanos(), metrics.getMaxOverflowWaitNanos());
+        assertEquals(2, metrics.getClockBackwardsCount());
+        assertEquals(19 + 8, metrics.getClockBackwardsMillis());
+        assertEquals(19, metrics.getMaxClockBackwardsMillis());
+    }
+}
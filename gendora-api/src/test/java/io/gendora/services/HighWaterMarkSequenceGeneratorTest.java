@@ -0,0 +1,246 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HighWaterMarkSequenceGeneratorTest {
+
+    private static final long NOW = IDGeneratorService.EPOCH + 1_000_000;
+
+    @TempDir
+    Path directory;
+
+    private static class InMemoryHighWaterMarkStore implements HighWaterMarkStore {
+        private final Map<Integer, Long> marks = new ConcurrentHashMap<>();
+
+        @Override
+        public long load(int slot) {
+            return marks.getOrDefault(slot, 0L);
+        }
+
+        @Override
+        public void store(int slot, long timestamp) {
+            marks.merge(slot, timestamp, Math::max);
+        }
+    }
+
+    @Test
+    void shouldPersistMarkAheadOfFirstId() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        GeneratorClock clock = new GeneratorClock(now::get);
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+
+        // When
+        try (HighWaterMarkSequenceGenerator sequenceGenerator =
+                     new HighWaterMarkSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, store, 1000, 0)) {
+            long id = sequenceGenerator.nextId(3);
+
+            // Then
+            assertEquals(NOW, IdDecoder.decode(id).timestampMillis());
+            assertEquals(NOW + 1000, store.load(3));
+            assertEquals(NOW + 1000, sequenceGenerator.getReservedUntil());
+        }
+    }
+
+    @Test
+    void shouldMoveMarkAheadInBackground() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        GeneratorClock clock = new GeneratorClock(now::get);
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+        try (HighWaterMarkSequenceGenerator sequenceGenerator =
+                     new HighWaterMarkSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, store, 1000, 0)) {
+            sequenceGenerator.nextId(3);
+
+            // When
+            now.set(NOW + 600);
+            sequenceGenerator.nextId(3);
+
+            // Then
+            long deadline = System.currentTimeMillis() + 5000;
+            while (store.load(3) != NOW + 1600 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(NOW + 1600, store.load(3));
+        }
+    }
+
+    @Test
+    void shouldKeepMarkAheadWithoutRequests() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        GeneratorClock clock = new GeneratorClock(now::get);
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+        try (HighWaterMarkSequenceGenerator sequenceGenerator =
+                     new HighWaterMarkSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, store, 100, 0)) {
+            sequenceGenerator.nextId(3);
+
+            // When the clock passes the mark without any request
+            now.set(NOW + 500);
+
+            // Then
+            long deadline = System.currentTimeMillis() + 5000;
+            while (store.load(3) < NOW + 550 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(store.load(3) >= NOW + 550);
+            assertTrue(sequenceGenerator.getReservedUntil() >= NOW + 550);
+        }
+    }
+
+    @Test
+    void shouldNotMoveMarkOfSlotNoLongerHeld() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        GeneratorClock clock = new GeneratorClock(now::get);
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+        try (HighWaterMarkSequenceGenerator sequenceGenerator = new HighWaterMarkSequenceGenerator(
+                new LockFreeSequenceGenerator(clock), clock, store, 100, 0, slot -> slot != 3)) {
+            sequenceGenerator.nextId(3);
+
+            // When
+            now.set(NOW + 500);
+            Thread.sleep(200);
+
+            // Then
+            assertEquals(NOW + 100, store.load(3));
+        }
+    }
+
+    @Test
+    void shouldMoveMarkBeforeHandingOutIdsBeyondIt() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        GeneratorClock clock = new GeneratorClock(now::get);
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+        try (HighWaterMarkSequenceGenerator sequenceGenerator =
+                     new HighWaterMarkSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, store, 1000, 0)) {
+            sequenceGenerator.nextId(3);
+
+            // When
+            now.set(NOW + 5000);
+            long[] ids = new long[100];
+            sequenceGenerator.nextIds(3, ids);
+
+            // Then
+            assertTrue(store.load(3) > IdDecoder.decode(ids[ids.length - 1]).timestampMillis());
+        }
+    }
+
+    @Test
+    void shouldWaitForClockToReachPersistedMark() throws Exception {
+        // Given
+        GeneratorClock clock = new GeneratorClock();
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+        long mark = System.currentTimeMillis() + 50;
+        store.store(3, mark);
+
+        // When
+        try (HighWaterMarkSequenceGenerator sequenceGenerator =
+                     new HighWaterMarkSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, store, 1000, 1000)) {
+            long id = sequenceGenerator.nextId(3);
+
+            // Then
+            assertTrue(IdDecoder.decode(id).timestampMillis() >= mark);
+            assertTrue(store.load(3) > mark);
+        }
+    }
+
+    @Test
+    void shouldRefuseIdsFarBelowPersistedMark() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        GeneratorClock clock = new GeneratorClock(now::get);
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+        store.store(3, NOW + 60_000);
+
+        // When
+        try (HighWaterMarkSequenceGenerator sequenceGenerator =
+                     new HighWaterMarkSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, store, 1000, 5000)) {
+
+            // Then
+            ClockMovedBackwardsException exception =
+                    assertThrows(ClockMovedBackwardsException.class, () -> sequenceGenerator.nextId(3));
+            assertEquals(60_000, exception.getBackwardsMillis());
+            assertEquals(NOW, IdDecoder.decode(sequenceGenerator.nextId(4)).timestampMillis());
+        }
+    }
+
+    @Test
+    void shouldKeepMarkPerSlot() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        GeneratorClock clock = new GeneratorClock(now::get);
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+        try (HighWaterMarkSequenceGenerator sequenceGenerator = new HighWaterMarkSequenceGenerator(
+                new PerSlotSequenceGenerator<>(() -> new LockFreeSequenceGenerator(clock)), clock, store, 1000, 0)) {
+            sequenceGenerator.nextId(3);
+
+            // When
+            now.set(NOW + 100);
+            sequenceGenerator.nextId(4);
+            sequenceGenerator.nextId(3);
+
+            // Then
+            assertEquals(NOW + 1000, store.load(3));
+            assertEquals(NOW + 1100, store.load(4));
+            assertEquals(NOW + 1100, sequenceGenerator.getReservedUntil());
+        }
+    }
+
+    @Test
+    void shouldRaiseFloorWhenSlotWasUsedElsewhereMeanwhile() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        GeneratorClock clock = new GeneratorClock(now::get);
+        InMemoryHighWaterMarkStore store = new InMemoryHighWaterMarkStore();
+        try (HighWaterMarkSequenceGenerator sequenceGenerator =
+                     new HighWaterMarkSequenceGenerator(new LockFreeSequenceGenerator(clock), clock, store, 1000, 0)) {
+            sequenceGenerator.nextId(3);
+            store.store(3, NOW + 3000);
+
+            // When
+            now.set(NOW + 2000);
+            ClockMovedBackwardsException exception =
+                    assertThrows(ClockMovedBackwardsException.class, () -> sequenceGenerator.nextId(3));
+            now.set(NOW + 3000);
+            long id = sequenceGenerator.nextId(3);
+
+            // Then
+            assertEquals(1000, exception.getBackwardsMillis());
+            assertEquals(NOW + 3000, IdDecoder.decode(id).timestampMillis());
+            assertEquals(NOW + 4000, store.load(3));
+        }
+    }
+
+    @Test
+    void shouldRecoverMarkFromMappedFile() throws Exception {
+        // Given
+        Path file = directory.resolve("marks");
+        try (MappedFileHighWaterMarkStore store = new MappedFileHighWaterMarkStore(file)) {
+            store.store(3, NOW);
+            store.store(3, NOW - 10);
+            store.store(1023, NOW + 1);
+        }
+
+        // When
+        try (MappedFileHighWaterMarkStore store = new MappedFileHighWaterMarkStore(file)) {
+
+            // Then
+            assertEquals(NOW, store.load(3));
+            assertEquals(NOW + 1, store.load(1023));
+            assertEquals(0, store.load(4));
+            assertThrows(IllegalArgumentException.class, () -> store.load(1024));
+        }
+    }
+}
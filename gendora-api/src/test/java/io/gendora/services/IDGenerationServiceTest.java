@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -19,7 +20,7 @@ import static org.mockito.Mockito.when;
 class IDGenerationServiceTest {
 
     @MockitoBean
-    private SlotAllocatorService slotAllocatorService;
+    private SlotCoordinator slotCoordinator;
 
     @Autowired
     private IDGeneratorService idGeneratorService;
@@ -27,20 +28,20 @@ class IDGenerationServiceTest {
     @Test
     void shouldGenerateIdSuccessfully() {
         // Given
-        when(slotAllocatorService.getAllocatedSlot()).thenReturn(0);
+        when(slotCoordinator.getAllocatedSlot()).thenReturn(0);
 
         // When
         long id = idGeneratorService.generateId();
 
         // Then
         assertTrue(id > 0);
-        verify(slotAllocatorService, times(1)).getAllocatedSlot();
+        verify(slotCoordinator, times(1)).getAllocatedSlot();
     }
 
     @Test
     void shouldReturnDifferentIdsForDifferentSlots() {
         // Given
-        when(slotAllocatorService.getAllocatedSlot()).thenReturn(0, 1);
+        when(slotCoordinator.getAllocatedSlot()).thenReturn(0, 1);
 
         // When
         long id1 = idGeneratorService.generateId();
@@ -48,13 +49,13 @@ class IDGenerationServiceTest {
 
         // Then
         assertTrue(id1 > 0 && id2 > 0 && id1 != id2);
-        verify(slotAllocatorService, times(2)).getAllocatedSlot();
+        verify(slotCoordinator, times(2)).getAllocatedSlot();
     }
 
     @Test
     void shouldReturnDifferentIdsForDifferentSequences() {
         // Given
-        when(slotAllocatorService.getAllocatedSlot()).thenReturn(0);
+        when(slotCoordinator.getAllocatedSlot()).thenReturn(0);
 
         // when
         Set<Long> ids = new HashSet<>();
@@ -65,13 +66,22 @@ class IDGenerationServiceTest {
 
         // Then
         assertTrue(ids.size() == 1024 && ids.stream().allMatch(id -> id > 0));
-        verify(slotAllocatorService, times(1024)).getAllocatedSlot();
+        verify(slotCoordinator, times(1024)).getAllocatedSlot();
+    }
+
+    @Test
+    void shouldRejectNamespaceWhenNamespacesAreDisabled() {
+        // Given
+        when(slotCoordinator.getAllocatedSlot()).thenReturn(0);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> idGeneratorService.generateId("orders"));
     }
 
     @Test
     void shouldGetMetadataSuccessfully() {
         // Given
-        when(slotAllocatorService.getAllocatedSlot()).thenReturn(0);
+        when(slotCoordinator.getAllocatedSlot()).thenReturn(0);
         long id = idGeneratorService.generateId();
 
         // When
@@ -83,8 +93,51 @@ class IDGenerationServiceTest {
         assertEquals(0L, metadata.get("machineID"));
         assertEquals(0L, metadata.get("sequenceID"));
         assertEquals("snowflake", metadata.get("algorithm"));
+        assertEquals("43/0/10/10", metadata.get("layout"));
+        assertTrue(!metadata.containsKey("datacenterID"));
+
+        verify(slotCoordinator, times(1)).getAllocatedSlot();
+    }
 
-        verify(slotAllocatorService, times(1)).getAllocatedSlot();
+    @Test
+    void shouldGenerateBatchOfUniqueIncreasingIds() {
+        // Given
+        when(slotCoordinator.getAllocatedSlot()).thenReturn(0);
+
+        // When
+        long[] ids = idGeneratorService.generateIds(5000);
+
+        // Then
+        Set<Long> uniqueIds = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            uniqueIds.add(ids[i]);
+            if (i > 0) {
+                assertTrue(ids[i] > ids[i - 1]);
+            }
+        }
+        assertEquals(5000, uniqueIds.size());
+        verify(slotCoordinator, times(1)).getAllocatedSlot();
+    }
+
+    @Test
+    void shouldContinueSequenceAcrossSingleAndBatchGeneration() {
+        // Given
+        when(slotCoordinator.getAllocatedSlot()).thenReturn(0);
+
+        // When
+        long first = idGeneratorService.generateId();
+        long[] batch = idGeneratorService.generateIds(2048);
+        long last = idGeneratorService.generateId();
+
+        // Then
+        assertTrue(batch[0] > first);
+        assertTrue(last > batch[batch.length - 1]);
+    }
+
+    @Test
+    void shouldRejectInvalidBatchCount() {
+        assertThrows(IllegalArgumentException.class, () -> idGeneratorService.generateIds(0));
+        assertThrows(IllegalArgumentException.class, () -> idGeneratorService.generateIds(10001));
     }
 
 }
@@ -0,0 +1,75 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdDecoderTest {
+
+    private static final long TIMESTAMP = IDGeneratorService.EPOCH + 1177408123L;
+
+    @Test
+    void shouldDecodeSingleId() {
+        // Given
+        long id = AbstractSequenceGenerator.composeId(TIMESTAMP, 42, 10);
+
+        // When
+        DecodedId decodedId = IdDecoder.decode(id);
+
+        // Then
+        assertEquals(id, decodedId.id());
+        assertEquals(1177408123L, decodedId.timestampDelta());
+        assertEquals(TIMESTAMP, decodedId.timestampMillis());
+        assertEquals(0, decodedId.datacenterId());
+        assertEquals(42, decodedId.machineId());
+        assertEquals(10, decodedId.sequenceId());
+    }
+
+    @Test
+    void shouldDecodeBatchOfIds() {
+        // Given
+        long[] ids = new long[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = AbstractSequenceGenerator.composeId(TIMESTAMP + i, i, 1023 - i);
+        }
+
+        // When
+        DecodedIds decodedIds = IdDecoder.decode(ids);
+
+        // Then
+        assertEquals(ids.length, decodedIds.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], decodedIds.getId(i));
+            assertEquals(TIMESTAMP + i, decodedIds.getTimestampMillis(i));
+            assertEquals(i, decodedIds.getMachineId(i));
+            assertEquals(1023 - i, decodedIds.getSequenceId(i));
+            assertEquals(IdDecoder.decode(ids[i]), decodedIds.get(i));
+        }
+    }
+
+    @Test
+    void shouldBoundIdsGeneratedWithinTimeWindow() {
+        // Given
+        long from = TIMESTAMP;
+        long to = TIMESTAMP + 999;
+
+        // When
+        IdDecoder.Range range = IdDecoder.range(from, to);
+
+        // Then
+        assertEquals(AbstractSequenceGenerator.composeId(from, 0, 0), range.minId());
+        assertEquals(AbstractSequenceGenerator.composeId(to, 1023, 1023), range.maxId());
+        assertTrue(AbstractSequenceGenerator.composeId(from - 1, 1023, 1023) < range.minId());
+        assertTrue(AbstractSequenceGenerator.composeId(to + 1, 0, 0) > range.maxId());
+    }
+
+    @Test
+    void shouldRejectInvalidTimeWindow() {
+        assertThrows(IllegalArgumentException.class, () -> IdDecoder.range(TIMESTAMP + 1, TIMESTAMP));
+        assertThrows(IllegalArgumentException.class, () -> IdDecoder.range(IDGeneratorService.EPOCH - 1, TIMESTAMP));
+        assertThrows(IllegalArgumentException.class,
+                () -> IdDecoder.range(TIMESTAMP, IDGeneratorService.EPOCH + IDGeneratorService.MAX_TIMESTAMP_DELTA + 1));
+    }
+}
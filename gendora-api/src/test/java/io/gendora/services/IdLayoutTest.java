@@ -0,0 +1,68 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdLayoutTest {
+
+    @Test
+    void shouldParseProfilesAndBitCounts() {
+        assertEquals(IdLayout.DEFAULT, IdLayout.parse("default"));
+        assertEquals(new IdLayout(43, 0, 10, 10), IdLayout.parse("43/10/10"));
+        assertEquals(new IdLayout(41, 0, 6, 16), IdLayout.parse("High-Rate"));
+        assertEquals(new IdLayout(41, 0, 6, 16), IdLayout.parse("41/6/16"));
+        assertEquals(new IdLayout(41, 5, 5, 12), IdLayout.parse("datacenter"));
+        assertEquals(new IdLayout(41, 5, 5, 12), IdLayout.parse(" 41/5/5/12 "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"unknown", "43/10", "43/10/11", "38/0/10/15", "41/6/11/5", "40/0/0/23", "43/-1/11/10",
+            "41/a/16", ""})
+    void shouldRejectInvalidLayouts(String layout) {
+        assertThrows(IllegalArgumentException.class, () -> IdLayout.parse(layout));
+    }
+
+    @Test
+    void shouldDeriveShiftsAndMasks() {
+        // When
+        IdLayout layout = IdLayout.parse("41/5/5/12");
+
+        // Then
+        assertEquals(12, layout.machineIdShift());
+        assertEquals(17, layout.datacenterIdShift());
+        assertEquals(22, layout.timestampShift());
+        assertEquals(31, layout.maxDatacenterId());
+        assertEquals(31, layout.maxMachineId());
+        assertEquals(4095, layout.maxSequenceId());
+        assertEquals((1L << 41) - 1, layout.maxTimestampDelta());
+        assertEquals("41/5/5/12", layout.toString());
+    }
+
+    @Test
+    void shouldMatchGeneratorConstantsWithActiveLayout() {
+        // Given
+        IdLayout layout = IdLayout.active();
+
+        // Then
+        assertEquals(layout, IDGeneratorService.LAYOUT);
+        assertEquals(layout.timestampShift(), IDGeneratorService.TIMESTAMP_SHIFT);
+        assertEquals(layout.machineIdShift(), IDGeneratorService.MACHINE_ID_SHIFT);
+        assertEquals(layout.maxMachineId(), IDGeneratorService.MAX_MACHINE_ID);
+        assertEquals(layout.maxSequenceId(), IDGeneratorService.MAX_SEQUENCE_ID);
+    }
+
+    @Test
+    void shouldNotSwitchActiveLayout() {
+        // Given
+        IdLayout layout = IdLayout.active();
+
+        // When & Then
+        assertEquals(layout, IdLayout.configure(layout.toString()));
+        String other = layout.equals(IdLayout.DEFAULT) ? "high-rate" : "default";
+        assertThrows(IllegalStateException.class, () -> IdLayout.configure(other));
+    }
+}
@@ -0,0 +1,138 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyCacheTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final AtomicInteger generations = new AtomicInteger();
+
+    private long[] generate(int count) {
+        long first = generations.incrementAndGet() * 1000L;
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    @Test
+    void shouldReturnSameIdsForRepeatedKey() {
+        // Given
+        IdempotencyCache cache = new IdempotencyCache(100, 1000, nanoTime::get);
+        long[] first = cache.getOrGenerate("key", null, 3, () -> generate(3));
+
+        // When
+        long[] repeated = cache.getOrGenerate("key", null, 3, () -> generate(3));
+
+        // Then
+        assertSame(first, repeated);
+        assertEquals(1, generations.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void shouldGenerateNewIdsForOtherKeys() {
+        // Given
+        IdempotencyCache cache = new IdempotencyCache(100, 1000, nanoTime::get);
+        long[] first = cache.getOrGenerate("key", null, 1, () -> generate(1));
+
+        // When
+        long[] other = cache.getOrGenerate("other-key", null, 1, () -> generate(1));
+
+        // Then
+        assertNotEquals(first[0], other[0]);
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void shouldGenerateNewIdsOnceKeyExpired() {
+        // Given
+        IdempotencyCache cache = new IdempotencyCache(100, 1000, nanoTime::get);
+        long[] first = cache.getOrGenerate("key", "orders", 1, () -> generate(1));
+
+        // When
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        long[] withinTtl = cache.getOrGenerate("key", "orders", 1, () -> generate(1));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        long[] afterTtl = cache.getOrGenerate("key", "orders", 1, () -> generate(1));
+
+        // Then
+        assertArrayEquals(first, withinTtl);
+        assertNotEquals(first[0], afterTtl[0]);
+        assertEquals(2, generations.get());
+    }
+
+    @Test
+    void shouldRejectKeyReusedForAnotherRequest() {
+        // Given
+        IdempotencyCache cache = new IdempotencyCache(100, 1000, nanoTime::get);
+        cache.getOrGenerate("key", "orders", 2, () -> generate(2));
+
+        // When / Then
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> cache.getOrGenerate("key", "orders", 3, () -> generate(3)));
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> cache.getOrGenerate("key", "invoices", 2, () -> generate(2)));
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> cache.getOrGenerate("key", null, 2, () -> generate(2)));
+        assertEquals(1, generations.get());
+    }
+
+    @Test
+    void shouldNotRememberFailedGenerations() {
+        // Given
+        IdempotencyCache cache = new IdempotencyCache(100, 1000, nanoTime::get);
+        ClockMovedBackwardsException failure = new ClockMovedBackwardsException(5);
+
+        // When
+        ClockMovedBackwardsException thrown = assertThrows(ClockMovedBackwardsException.class,
+                () -> cache.getOrGenerate("key", null, 1, () -> {
+                    throw failure;
+                }));
+        long[] retried = cache.getOrGenerate("key", null, 1, () -> generate(1));
+
+        // Then
+        assertSame(failure, thrown);
+        assertEquals(1000, retried[0]);
+    }
+
+    @Test
+    void shouldForgetKeysPastMaximum() {
+        // Given
+        IdempotencyCache cache = new IdempotencyCache(2, 1000, nanoTime::get);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            cache.getOrGenerate("key-" + i, null, 1, () -> generate(1));
+        }
+
+        // Then
+        assertTrue(cache.getSize() <= 2);
+        assertTrue(cache.getEvictionCount() >= 8);
+    }
+
+    @Test
+    void shouldRejectKeysTooLong() {
+        // Given
+        IdempotencyCache cache = new IdempotencyCache(100, 1000, nanoTime::get);
+        String key = "k".repeat(IdempotencyCache.MAX_KEY_LENGTH + 1);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrGenerate(key, null, 1, () -> generate(1)));
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrGenerate("", null, 1, () -> generate(1)));
+        assertEquals(0, generations.get());
+    }
+}
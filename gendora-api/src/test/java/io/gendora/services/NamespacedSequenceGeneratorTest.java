@@ -0,0 +1,115 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NamespacedSequenceGeneratorTest {
+
+    private static final long NOW = IDGeneratorService.EPOCH + 1_000_000;
+
+    private static long spaceOf(long id, int namespaceBits) {
+        return (id & IDGeneratorService.MAX_SEQUENCE_ID) >> (IDGeneratorService.SEQUENCE_BITS - namespaceBits);
+    }
+
+    @Test
+    void shouldRejectNamespaceBitsThatDoNotFitTheSequenceBits() {
+        GeneratorClock clock = new GeneratorClock();
+        assertThrows(IllegalArgumentException.class, () -> new NamespacedSequenceGenerator(0, 1000, clock));
+        assertThrows(IllegalArgumentException.class,
+                () -> new NamespacedSequenceGenerator((int) IDGeneratorService.SEQUENCE_BITS, 1000, clock));
+    }
+
+    @Test
+    void shouldRejectInvalidNamespace() {
+        // Given
+        NamespacedSequenceGenerator sequenceGenerator = new NamespacedSequenceGenerator(2, 1000, new GeneratorClock());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> sequenceGenerator.nextId(0, ""));
+        assertThrows(IllegalArgumentException.class, () -> sequenceGenerator.nextId(0, "orders/2025"));
+    }
+
+    @Test
+    void shouldGiveEachNamespaceItsOwnSpace() {
+        // Given
+        NamespacedSequenceGenerator sequenceGenerator = new NamespacedSequenceGenerator(2, 1000, new GeneratorClock());
+
+        // When
+        long sharedId = sequenceGenerator.nextId(0);
+        long ordersId = sequenceGenerator.nextId(0, "orders");
+        long usersId = sequenceGenerator.nextId(0, "users");
+
+        // Then
+        assertEquals(0, spaceOf(sharedId, 2));
+        assertNotEquals(0, spaceOf(ordersId, 2));
+        assertNotEquals(0, spaceOf(usersId, 2));
+        assertNotEquals(spaceOf(ordersId, 2), spaceOf(usersId, 2));
+        assertEquals(spaceOf(ordersId, 2), spaceOf(sequenceGenerator.nextId(0, "orders"), 2));
+        assertEquals(2, sequenceGenerator.getNamespaceCount());
+    }
+
+    @Test
+    void shouldNotHoldUpOtherNamespacesWhenOneIsExhausted() {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        NamespacedSequenceGenerator sequenceGenerator =
+                new NamespacedSequenceGenerator(2, 1000, new GeneratorClock(now::get, 10, GeneratorClock.BackwardsPolicy.FAIL, 0));
+        long[] burst = new long[(int) (IDGeneratorService.MAX_SEQUENCE_ID + 1) / 4];
+        sequenceGenerator.nextIds(0, "orders", burst);
+
+        // When
+        long usersId = sequenceGenerator.nextId(0, "users");
+
+        // Then
+        assertEquals(NOW, IdDecoder.decode(burst[burst.length - 1]).timestampMillis());
+        assertEquals(NOW, IdDecoder.decode(usersId).timestampMillis());
+        assertEquals(NOW + 1, IdDecoder.decode(sequenceGenerator.nextId(0, "orders")).timestampMillis());
+    }
+
+    @Test
+    void shouldShareSpaceWhileAllSpacesAreInUse() {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        NamespacedSequenceGenerator sequenceGenerator =
+                new NamespacedSequenceGenerator(1, 1000, new GeneratorClock(now::get));
+        sequenceGenerator.nextId(0, "orders");
+
+        // When
+        long usersId = sequenceGenerator.nextId(0, "users");
+
+        // Then
+        assertEquals(0, spaceOf(usersId, 1));
+        assertEquals(1, sequenceGenerator.getOverflowCount());
+        assertEquals(0, sequenceGenerator.getEvictionCount());
+    }
+
+    @Test
+    void shouldHandOverSpaceOfIdleNamespaceWithoutReusingIds() {
+        // Given
+        AtomicLong now = new AtomicLong(NOW);
+        NamespacedSequenceGenerator sequenceGenerator =
+                new NamespacedSequenceGenerator(1, 1000, new GeneratorClock(now::get));
+        Set<Long> ids = new HashSet<>();
+        ids.add(sequenceGenerator.nextId(0, "orders"));
+        now.addAndGet(1000);
+
+        // When
+        long usersId = sequenceGenerator.nextId(0, "users");
+        long ordersId = sequenceGenerator.nextId(0, "orders");
+
+        // Then
+        assertEquals(1, spaceOf(usersId, 1));
+        assertEquals(0, spaceOf(ordersId, 1));
+        assertEquals(1, sequenceGenerator.getEvictionCount());
+        assertTrue(ids.add(usersId));
+        assertTrue(ids.add(ordersId));
+    }
+}
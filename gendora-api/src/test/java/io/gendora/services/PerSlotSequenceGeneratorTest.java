@@ -0,0 +1,51 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PerSlotSequenceGeneratorTest {
+
+    private static final long NOW = IDGeneratorService.EPOCH + 1_000_000;
+
+    @Test
+    void shouldGiveEachSlotItsOwnSequenceSpace() {
+        // Given
+        GeneratorClock clock = new GeneratorClock(new AtomicLong(NOW)::get);
+        PerSlotSequenceGenerator<SynchronizedSequenceGenerator> sequenceGenerator =
+                new PerSlotSequenceGenerator<>(() -> new SynchronizedSequenceGenerator(clock));
+        long[] slot3Ids = new long[(int) IDGeneratorService.MAX_SEQUENCE_ID + 1];
+        long[] slot4Ids = new long[(int) IDGeneratorService.MAX_SEQUENCE_ID + 1];
+
+        // When
+        sequenceGenerator.nextIds(3, slot3Ids);
+        sequenceGenerator.nextIds(4, slot4Ids);
+
+        // Then
+        DecodedId last3 = IdDecoder.decode(slot3Ids[slot3Ids.length - 1]);
+        DecodedId last4 = IdDecoder.decode(slot4Ids[slot4Ids.length - 1]);
+        assertEquals(NOW, last3.timestampMillis());
+        assertEquals(NOW, last4.timestampMillis());
+        assertEquals(3, last3.machineId());
+        assertEquals(4, last4.machineId());
+        assertEquals(2, sequenceGenerator.getGenerators().size());
+    }
+
+    @Test
+    void shouldContinueSequenceOfSlotUsedBefore() {
+        // Given
+        GeneratorClock clock = new GeneratorClock(new AtomicLong(NOW)::get);
+        PerSlotSequenceGenerator<SynchronizedSequenceGenerator> sequenceGenerator =
+                new PerSlotSequenceGenerator<>(() -> new SynchronizedSequenceGenerator(clock));
+        long first = sequenceGenerator.nextId(3);
+        sequenceGenerator.nextId(4);
+
+        // When
+        long second = sequenceGenerator.nextId(3);
+
+        // Then
+        assertEquals(first + 1, second);
+    }
+}
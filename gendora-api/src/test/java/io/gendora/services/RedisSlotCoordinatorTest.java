@@ -0,0 +1,368 @@
+package io.gendora.services;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(
+    properties = {
+        "spring.application.name=test-app",
+        "spring.main.allow-bean-definition-overriding=true"
+    }
+)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class RedisSlotCoordinatorTest {
+
+    @Autowired
+    private RedisStandIn redisStandIn;
+
+    @Autowired
+    private RedisSlotCoordinator slotCoordinator;
+
+    @TestConfiguration
+    static class RedisStandInConfiguration {
+
+        @Bean
+        public RedisStandIn redisStandIn() {
+            return new RedisStandIn();
+        }
+
+        @Bean
+        @Primary
+        public StatefulRedisConnection<String, String> redisConnection(RedisStandIn redisStandIn) {
+            @SuppressWarnings("unchecked")
+            StatefulRedisConnection<String, String> redisConnection = mock(StatefulRedisConnection.class);
+            when(redisConnection.sync()).thenReturn(redisStandIn.commands());
+            return redisConnection;
+        }
+    }
+
+    @Test
+    void shouldAllocateSlotInSingleRoundTrip() {
+        // When
+        int slot = slotCoordinator.getAllocatedSlot();
+
+        // Then
+        assertTrue(slot >= 0 && slot < 1024);
+        assertNotNull(redisStandIn.get("test-app:slot:" + slot));
+        assertEquals(1, redisStandIn.getScriptCount());
+    }
+
+    @Test
+    void shouldReturnInitializedSlotOnMultipleCalls() {
+        // When
+        int slot1 = slotCoordinator.getAllocatedSlot();
+        int slot2 = slotCoordinator.getAllocatedSlot();
+        int slot3 = slotCoordinator.getAllocatedSlot();
+
+        // Then
+        assertEquals(slot1, slot2);
+        assertEquals(slot1, slot3);
+        assertEquals(1, redisStandIn.getScriptCount());
+    }
+
+    @Test
+    void shouldReleaseSlotOnCleanup() {
+        // Given
+        int slot = slotCoordinator.getAllocatedSlot();
+
+        // When
+        slotCoordinator.cleanup();
+
+        // Then
+        assertNull(redisStandIn.get("test-app:slot:" + slot));
+    }
+
+    @Test
+    void shouldPreferSlotPreviouslyHeldByHost() {
+        // Given
+        int slot = slotCoordinator.getAllocatedSlot();
+        slotCoordinator.cleanup();
+        RedisSlotCoordinator restarted = newSlotCoordinator(redisStandIn);
+
+        // When
+        restarted.init();
+
+        // Then
+        assertEquals(slot, restarted.getAllocatedSlot());
+        restarted.cleanup();
+    }
+
+    @Test
+    void shouldAllocateDistinctSlotsToConcurrentCoordinators() throws Exception {
+        // Given
+        RedisStandIn redis = new RedisStandIn();
+        List<RedisSlotCoordinator> coordinators = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            coordinators.add(newSlotCoordinator(redis));
+        }
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        List<Future<Integer>> slots = new ArrayList<>();
+        for (RedisSlotCoordinator coordinator : coordinators) {
+            slots.add(executor.submit(() -> {
+                coordinator.init();
+                return coordinator.getAllocatedSlot();
+            }));
+        }
+
+        // Then
+        Set<Integer> distinctSlots = new HashSet<>();
+        for (Future<Integer> slot : slots) {
+            distinctSlots.add(slot.get());
+        }
+        assertEquals(1024, distinctSlots.size());
+        assertEquals(1024, redis.getScriptCount());
+
+        RedisSlotCoordinator oneTooMany = newSlotCoordinator(redis);
+        assertThrows(RuntimeException.class, oneTooMany::init);
+
+        executor.shutdown();
+        coordinators.forEach(RedisSlotCoordinator::cleanup);
+    }
+
+    @Test
+    void shouldKeepHandingOutSlotWhileRenewalsFail() {
+        // Given
+        AtomicLong nanoTime = new AtomicLong();
+        RedisSlotCoordinator coordinator = newSlotCoordinator(redisStandIn, nanoTime);
+        coordinator.init();
+        int slot = coordinator.getAllocatedSlot();
+
+        // When
+        redisStandIn.failNextCommands(3);
+        for (int i = 0; i < 3; i++) {
+            nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+            coordinator.maintainLease();
+        }
+
+        // Then
+        assertEquals(slot, coordinator.getAllocatedSlot());
+        assertEquals(3, coordinator.getRenewalFailureCount());
+        assertEquals(0, coordinator.getRenewalCount());
+        coordinator.cleanup();
+    }
+
+    @Test
+    void shouldStopHandingOutSlotShortlyBeforeLeaseRunsOut() {
+        // Given
+        AtomicLong nanoTime = new AtomicLong();
+        RedisSlotCoordinator coordinator = newSlotCoordinator(redisStandIn, nanoTime);
+        coordinator.init();
+        redisStandIn.failNextCommands(Integer.MAX_VALUE);
+
+        // When
+        nanoTime.addAndGet(Duration.ofMinutes(5).minusSeconds(11).toNanos());
+        int slotBeforeDeadline = coordinator.getAllocatedSlot();
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        // As the check scheduled for the deadline does
+        coordinator.publishLeases();
+
+        // Then
+        assertTrue(slotBeforeDeadline >= 0);
+        assertThrows(IllegalStateException.class, coordinator::getAllocatedSlot);
+        redisStandIn.failNextCommands(0);
+        coordinator.cleanup();
+    }
+
+    @Test
+    void shouldNotReadClockWhenHandingOutSlot() {
+        // Given
+        AtomicLong clockReads = new AtomicLong();
+        RedisSlotCoordinator coordinator = newSlotCoordinator(redisStandIn,
+                new RedisSlotCoordinator(() -> {
+                    clockReads.incrementAndGet();
+                    return 0;
+                }));
+        coordinator.init();
+        long readsAfterInit = clockReads.get();
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            coordinator.getAllocatedSlot();
+        }
+
+        // Then
+        assertEquals(readsAfterInit, clockReads.get());
+        coordinator.cleanup();
+    }
+
+    @Test
+    void shouldExtendLeaseOnRenewal() {
+        // Given
+        AtomicLong nanoTime = new AtomicLong();
+        RedisSlotCoordinator coordinator = newSlotCoordinator(redisStandIn, nanoTime);
+        coordinator.init();
+        int slot = coordinator.getAllocatedSlot();
+
+        // When
+        nanoTime.addAndGet(Duration.ofMinutes(4).toNanos());
+        redisStandIn.advanceTime(Duration.ofMinutes(4));
+        coordinator.maintainLease();
+        nanoTime.addAndGet(Duration.ofMinutes(4).toNanos());
+        redisStandIn.advanceTime(Duration.ofMinutes(4));
+
+        // Then
+        assertEquals(slot, coordinator.getAllocatedSlot());
+        assertNotNull(redisStandIn.get("test-app:slot:" + slot));
+        assertEquals(1, coordinator.getRenewalCount());
+        assertEquals(50.0, coordinator.getLeaseRemainingSeconds(), 0.001);
+        coordinator.cleanup();
+    }
+
+    @Test
+    void shouldAcquireNewSlotWhenLeaseWasTakenOver() {
+        // Given
+        RedisSlotCoordinator coordinator = newSlotCoordinator(redisStandIn, new AtomicLong());
+        coordinator.init();
+        int slot = coordinator.getAllocatedSlot();
+        redisStandIn.set("test-app:slot:" + slot, "other-instance");
+
+        // When
+        coordinator.maintainLease();
+
+        // Then
+        int newSlot = coordinator.getAllocatedSlot();
+        assertNotEquals(slot, newSlot);
+        assertEquals("other-instance", redisStandIn.get("test-app:slot:" + slot));
+        assertNotEquals("other-instance", redisStandIn.get("test-app:slot:" + newSlot));
+        assertEquals(1, coordinator.getLeaseLossCount());
+        coordinator.cleanup();
+    }
+
+    @Test
+    void shouldNotReleaseSlotOwnedByAnotherInstance() {
+        // Given
+        int slot = slotCoordinator.getAllocatedSlot();
+        redisStandIn.set("test-app:slot:" + slot, "other-instance");
+
+        // When
+        slotCoordinator.cleanup();
+
+        // Then
+        assertEquals("other-instance", redisStandIn.get("test-app:slot:" + slot));
+    }
+
+    @Test
+    void shouldClaimExtraSlotsAndSpreadCallersAcrossThem() throws Exception {
+        // Given
+        RedisSlotCoordinator coordinator = newSlotCoordinator(redisStandIn, new AtomicLong());
+        coordinator.init();
+
+        // When
+        coordinator.requestSlotCount(3);
+        awaitSlotCount(coordinator, 3);
+
+        // Then
+        Set<Integer> slots = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 30; i++) {
+            Thread thread = new Thread(() -> slots.add(coordinator.getAllocatedSlot()));
+            thread.start();
+            thread.join();
+        }
+        assertEquals(3, slots.size());
+        for (int slot : slots) {
+            assertNotNull(redisStandIn.get("test-app:slot:" + slot));
+        }
+        coordinator.cleanup();
+        for (int slot : slots) {
+            assertNull(redisStandIn.get("test-app:slot:" + slot));
+        }
+    }
+
+    @Test
+    void shouldLeaveReservedSlotsFree() throws Exception {
+        // Given
+        RedisSlotCoordinator coordinator = newSlotCoordinator(redisStandIn, new AtomicLong());
+        ReflectionTestUtils.setField(coordinator, "reservedSlots", 1023);
+        coordinator.init();
+
+        // When
+        coordinator.requestSlotCount(2);
+        coordinator.adjustSlotCount();
+
+        // Then
+        assertEquals(1, coordinator.getSlotCount());
+        coordinator.cleanup();
+    }
+
+    @Test
+    void shouldReleaseExtraSlotOnlyAfterSafetyMargin() throws Exception {
+        // Given
+        AtomicLong nanoTime = new AtomicLong();
+        RedisSlotCoordinator coordinator = newSlotCoordinator(redisStandIn, nanoTime);
+        coordinator.init();
+        int primarySlot = coordinator.getAllocatedSlot();
+        coordinator.requestSlotCount(2);
+        awaitSlotCount(coordinator, 2);
+        int extraSlot = -1;
+        for (int slot = 0; slot < 1024; slot++) {
+            if (slot != primarySlot && redisStandIn.get("test-app:slot:" + slot) != null) {
+                extraSlot = slot;
+            }
+        }
+
+        // When
+        coordinator.requestSlotCount(1);
+        awaitSlotCount(coordinator, 1);
+        coordinator.maintainLease();
+        String beforeMargin = redisStandIn.get("test-app:slot:" + extraSlot);
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        coordinator.maintainLease();
+
+        // Then
+        assertNotNull(beforeMargin);
+        assertNull(redisStandIn.get("test-app:slot:" + extraSlot));
+        assertEquals(primarySlot, coordinator.getAllocatedSlot());
+        coordinator.cleanup();
+    }
+
+    private static void awaitSlotCount(RedisSlotCoordinator coordinator, int slotCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coordinator.getSlotCount() != slotCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(slotCount, coordinator.getSlotCount());
+    }
+
+    private static RedisSlotCoordinator newSlotCoordinator(RedisStandIn redis, AtomicLong nanoTime) {
+        return newSlotCoordinator(redis, new RedisSlotCoordinator(nanoTime::get));
+    }
+
+    private static RedisSlotCoordinator newSlotCoordinator(RedisStandIn redis) {
+        return newSlotCoordinator(redis, new RedisSlotCoordinator());
+    }
+
+    private static RedisSlotCoordinator newSlotCoordinator(RedisStandIn redis, RedisSlotCoordinator coordinator) {
+        ReflectionTestUtils.setField(coordinator, "applicationName", "test-app");
+        ReflectionTestUtils.setField(coordinator, "redis", redis.commands());
+        return coordinator;
+    }
+}
@@ -0,0 +1,275 @@
+package io.gendora.services;
+
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaInteger;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory stand-in for a single Redis server, covering the string commands and Lua scripts the
+ * slot allocation relies on. Commands and scripts run one at a time, like on Redis, and scripts
+ * run on a real Lua interpreter. Time can be moved forward to expire keys, and commands can be
+ * made to fail to simulate an outage.
+ */
+class RedisStandIn {
+
+    private record Entry(String value, long expiresAtMillis) {
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, LuaValue> scripts = new HashMap<>();
+    private final Globals globals = JsePlatform.standardGlobals();
+    private final AtomicInteger commandCount = new AtomicInteger();
+    private final AtomicInteger scriptCount = new AtomicInteger();
+    private long timeOffsetMillis;
+    private int commandsToFail;
+
+    RedisStandIn() {
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                String[] command = new String[args.narg()];
+                for (int i = 0; i < command.length; i++) {
+                    command[i] = args.arg(i + 1).tojstring();
+                }
+                return toLua(execute(command));
+            }
+        });
+        globals.set("redis", redis);
+    }
+
+    /**
+     * The Lettuce commands backed by this stand-in.
+     */
+    @SuppressWarnings("unchecked")
+    RedisCommands<String, String> commands() {
+        return (RedisCommands<String, String>) Proxy.newProxyInstance(
+                RedisCommands.class.getClassLoader(),
+                new Class<?>[] { RedisCommands.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "eval" -> eval((String) args[0], strings((Object[]) args[2]), strings((Object[]) args[3]));
+                    case "get" -> call("GET", args[0]);
+                    case "del" -> call("DEL", (Object[]) args[0]);
+                    case "expire" -> (Long) call("EXPIRE", args[0], args[1]) == 1;
+                    case "ttl" -> call("TTL", args[0]);
+                    case "ping" -> "PONG";
+                    case "toString" -> "RedisStandIn";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException("Not supported by the stand-in: " + method);
+                });
+    }
+
+    /**
+     * The number of commands and scripts received from clients, i.e. round trips.
+     */
+    int getCommandCount() {
+        return commandCount.get();
+    }
+
+    /**
+     * The number of scripts received from clients.
+     */
+    int getScriptCount() {
+        return scriptCount.get();
+    }
+
+    synchronized String get(String key) {
+        return (String) execute("GET", key);
+    }
+
+    synchronized void set(String key, String value) {
+        execute("SET", key, value);
+    }
+
+    /**
+     * Lets the next commands or scripts received from clients fail as if the connection was lost.
+     */
+    synchronized void failNextCommands(int count) {
+        commandsToFail = count;
+    }
+
+    synchronized void advanceTime(Duration duration) {
+        timeOffsetMillis += duration.toMillis();
+    }
+
+    private synchronized Object call(String command, Object... args) {
+        receive();
+        String[] arguments = new String[args.length + 1];
+        arguments[0] = command;
+        for (int i = 0; i < args.length; i++) {
+            arguments[i + 1] = String.valueOf(args[i]);
+        }
+        return execute(arguments);
+    }
+
+    private synchronized Object eval(String script, String[] keys, String[] args) {
+        receive();
+        scriptCount.incrementAndGet();
+        LuaValue chunk = scripts.computeIfAbsent(script, source -> globals.load(source, "script"));
+        globals.set("KEYS", toLuaList(keys));
+        globals.set("ARGV", toLuaList(args));
+        return fromLua(chunk.call());
+    }
+
+    private void receive() {
+        commandCount.incrementAndGet();
+        if (commandsToFail > 0) {
+            commandsToFail--;
+            throw new RedisException("Connection lost");
+        }
+    }
+
+    private Object execute(String... command) {
+        String name = command[0].toUpperCase(Locale.ROOT);
+        switch (name) {
+            case "GET": {
+                Entry entry = lookup(command[1]);
+                return entry == null ? null : entry.value();
+            }
+            case "SET": {
+                boolean nx = false;
+                boolean xx = false;
+                long expiresAtMillis = Long.MAX_VALUE;
+                for (int i = 3; i < command.length; i++) {
+                    switch (command[i].toUpperCase(Locale.ROOT)) {
+                        case "NX" -> nx = true;
+                        case "XX" -> xx = true;
+                        case "EX" -> expiresAtMillis = now() + Long.parseLong(command[++i]) * 1000;
+                        case "PX" -> expiresAtMillis = now() + Long.parseLong(command[++i]);
+                        default -> throw new LuaError("ERR syntax error");
+                    }
+                }
+                boolean exists = lookup(command[1]) != null;
+                if ((nx && exists) || (xx && !exists)) {
+                    return null;
+                }
+                entries.put(command[1], new Entry(command[2], expiresAtMillis));
+                return Status.OK;
+            }
+            case "DEL": {
+                long deleted = 0;
+                for (int i = 1; i < command.length; i++) {
+                    if (lookup(command[i]) != null) {
+                        entries.remove(command[i]);
+                        deleted++;
+                    }
+                }
+                return deleted;
+            }
+            case "EXISTS":
+                return lookup(command[1]) == null ? 0L : 1L;
+            case "EXPIRE":
+            case "PEXPIRE": {
+                Entry entry = lookup(command[1]);
+                if (entry == null) {
+                    return 0L;
+                }
+                long ttlMillis = Long.parseLong(command[2]) * (name.equals("EXPIRE") ? 1000 : 1);
+                entries.put(command[1], new Entry(entry.value(), now() + ttlMillis));
+                return 1L;
+            }
+            case "TTL":
+            case "PTTL": {
+                Entry entry = lookup(command[1]);
+                if (entry == null) {
+                    return -2L;
+                }
+                if (entry.expiresAtMillis() == Long.MAX_VALUE) {
+                    return -1L;
+                }
+                long ttlMillis = entry.expiresAtMillis() - now();
+                return name.equals("TTL") ? (ttlMillis + 999) / 1000 : ttlMillis;
+            }
+            default:
+                throw new LuaError("ERR unknown command '" + command[0] + "'");
+        }
+    }
+
+    private Entry lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtMillis() <= now()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private long now() {
+        return System.currentTimeMillis() + timeOffsetMillis;
+    }
+
+    private enum Status {
+        OK
+    }
+
+    // Conversions between Redis replies and Lua values, as documented for EVAL
+
+    private static LuaValue toLua(Object reply) {
+        if (reply == null) {
+            return LuaValue.FALSE;
+        }
+        if (reply instanceof Status status) {
+            LuaTable table = new LuaTable();
+            table.set("ok", status.name());
+            return table;
+        }
+        if (reply instanceof Long number) {
+            return LuaInteger.valueOf(number);
+        }
+        return LuaValue.valueOf((String) reply);
+    }
+
+    private static Object fromLua(LuaValue value) {
+        if (value.isnil() || value.isboolean()) {
+            return value.toboolean() ? 1L : null;
+        }
+        if (value.type() == LuaValue.TNUMBER) {
+            return (long) value.todouble();
+        }
+        if (value.istable()) {
+            LuaValue ok = value.get("ok");
+            if (!ok.isnil()) {
+                return ok.tojstring();
+            }
+            List<Object> values = new ArrayList<>();
+            for (int i = 1; !value.get(i).isnil(); i++) {
+                values.add(fromLua(value.get(i)));
+            }
+            return values;
+        }
+        return value.tojstring();
+    }
+
+    private static LuaTable toLuaList(String[] values) {
+        LuaValue[] luaValues = new LuaValue[values.length];
+        for (int i = 0; i < values.length; i++) {
+            luaValues[i] = LuaValue.valueOf(values[i]);
+        }
+        return LuaValue.listOf(luaValues);
+    }
+
+    private static String[] strings(Object[] values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            strings[i] = String.valueOf(values[i]);
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,230 @@
+package io.gendora.services;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequenceGeneratorTest {
+
+    static Stream<Arguments> sequenceGenerators() {
+        return Stream.of(
+                Arguments.of("synchronized", (Supplier<SequenceGenerator>) SynchronizedSequenceGenerator::new),
+                Arguments.of("lock-free", (Supplier<SequenceGenerator>) LockFreeSequenceGenerator::new),
+                Arguments.of("sharded", (Supplier<SequenceGenerator>) () -> new ShardedSequenceGenerator(4))
+        );
+    }
+
+    static Stream<Arguments> clockedSequenceGenerators() {
+        return Stream.of(
+                Arguments.of("synchronized", (Function<GeneratorClock, SequenceGenerator>) SynchronizedSequenceGenerator::new),
+                Arguments.of("lock-free", (Function<GeneratorClock, SequenceGenerator>) LockFreeSequenceGenerator::new),
+                Arguments.of("sharded", (Function<GeneratorClock, SequenceGenerator>) clock -> new ShardedSequenceGenerator(1, clock))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("sequenceGenerators")
+    void shouldGenerateIncreasingIdsAcrossSequenceOverflow(String mode, Supplier<SequenceGenerator> factory) {
+        // Given
+        SequenceGenerator sequenceGenerator = factory.get();
+
+        // When
+        long previous = sequenceGenerator.nextId(7);
+        for (int i = 0; i < 5000; i++) {
+            long id = sequenceGenerator.nextId(7);
+
+            // Then
+            assertTrue(id > previous);
+            assertEquals(7, (id >> IDGeneratorService.MACHINE_ID_SHIFT) & IDGeneratorService.MAX_MACHINE_ID);
+            previous = id;
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("sequenceGenerators")
+    void shouldGenerateIncreasingBatchesInterleavedWithSingleIds(String mode, Supplier<SequenceGenerator> factory) {
+        // Given
+        SequenceGenerator sequenceGenerator = factory.get();
+
+        // When
+        long first = sequenceGenerator.nextId(0);
+        long[] batch = new long[3000];
+        sequenceGenerator.nextIds(0, batch);
+        long last = sequenceGenerator.nextId(0);
+
+        // Then
+        assertTrue(batch[0] > first);
+        for (int i = 1; i < batch.length; i++) {
+            assertTrue(batch[i] > batch[i - 1]);
+        }
+        assertTrue(last > batch[batch.length - 1]);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("sequenceGenerators")
+    void shouldGenerateUniqueIdsAcrossThreads(String mode, Supplier<SequenceGenerator> factory) throws Exception {
+        // Given
+        SequenceGenerator sequenceGenerator = factory.get();
+        int threads = 16;
+        int idsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            boolean batched = t % 2 == 0;
+            Callable<long[]> task = () -> {
+                long[] ids = new long[idsPerThread];
+                if (batched) {
+                    long[] batch = new long[100];
+                    for (int i = 0; i < idsPerThread; i += batch.length) {
+                        sequenceGenerator.nextIds(0, batch);
+                        System.arraycopy(batch, 0, ids, i, batch.length);
+                    }
+                } else {
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids[i] = sequenceGenerator.nextId(0);
+                    }
+                }
+                return ids;
+            };
+            futures.add(executor.submit(task));
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            for (long id : future.get()) {
+                ids.add(id);
+            }
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("clockedSequenceGenerators")
+    void shouldBorrowMillisecondsWithinDriftBudget(String mode, Function<GeneratorClock, SequenceGenerator> factory) {
+        // Given
+        long now = IDGeneratorService.EPOCH + 1_000_000;
+        SequenceGenerator sequenceGenerator = factory.apply(new GeneratorClock(() -> now, 50, GeneratorClock.BackwardsPolicy.FAIL, 0));
+
+        // When
+        long[] ids = new long[5 * 1024];
+        sequenceGenerator.nextIds(0, ids);
+        long next = sequenceGenerator.nextId(0);
+
+        // Then
+        long lastTimestampDelta = ids[ids.length - 1] >> IDGeneratorService.TIMESTAMP_SHIFT;
+        assertEquals(now - IDGeneratorService.EPOCH + 4, lastTimestampDelta);
+        assertEquals(now - IDGeneratorService.EPOCH + 5, next >> IDGeneratorService.TIMESTAMP_SHIFT);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("clockedSequenceGenerators")
+    void shouldWaitForClockOnceDriftBudgetIsSpent(String mode, Function<GeneratorClock, SequenceGenerator> factory) {
+        // Given
+        long start = IDGeneratorService.EPOCH + 1_000_000;
+        AtomicLong reads = new AtomicLong();
+        // The clock only advances one millisecond every 5000 reads
+        SequenceGenerator sequenceGenerator = factory.apply(new GeneratorClock(
+                () -> start + reads.getAndIncrement() / 5000, 2, GeneratorClock.BackwardsPolicy.FAIL, 0));
+
+        // When
+        long previous = sequenceGenerator.nextId(0);
+        for (int i = 0; i < 10 * 1024; i++) {
+            long id = sequenceGenerator.nextId(0);
+
+            // Then
+            assertTrue(id > previous);
+            long drift = (id >> IDGeneratorService.TIMESTAMP_SHIFT) + IDGeneratorService.EPOCH - (start + reads.get() / 5000);
+            assertTrue(drift <= 2);
+            previous = id;
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("clockedSequenceGenerators")
+    void shouldRejectClockMovingBackwardsBeyondDriftBudget(String mode, Function<GeneratorClock, SequenceGenerator> factory) {
+        // Given
+        AtomicLong now = new AtomicLong(IDGeneratorService.EPOCH + 1_000_000);
+        SequenceGenerator sequenceGenerator = factory.apply(new GeneratorClock(now::get, 50, GeneratorClock.BackwardsPolicy.FAIL, 0));
+        long first = sequenceGenerator.nextId(0);
+
+        // When
+        now.addAndGet(-30);
+        long second = sequenceGenerator.nextId(0);
+        now.addAndGet(-30);
+
+        // Then
+        assertTrue(second > first);
+        assertThrows(ClockMovedBackwardsException.class, () -> sequenceGenerator.nextId(0));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("clockedSequenceGenerators")
+    void shouldFailInsteadOfWaitingAndContinueAfterwards(String mode, Function<GeneratorClock, SequenceGenerator> factory) {
+        // Given a sequence space exhausted for the current millisecond
+        AtomicLong now = new AtomicLong(IDGeneratorService.EPOCH + 1_000_000);
+        SequenceGenerator sequenceGenerator = factory.apply(new GeneratorClock(now::get));
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i <= IDGeneratorService.MAX_SEQUENCE_ID; i++) {
+            ids.add(sequenceGenerator.nextId(0));
+        }
+
+        // When
+        SequenceExhaustedException exhausted = assertThrows(SequenceExhaustedException.class,
+                () -> GeneratorClock.withoutWaiting(() -> sequenceGenerator.nextId(0)));
+        now.incrementAndGet();
+        long next = GeneratorClock.withoutWaiting(() -> sequenceGenerator.nextId(0));
+
+        // Then
+        assertEquals(1, exhausted.getWaitMillis());
+        assertTrue(ids.add(next));
+        assertEquals(now.get() - IDGeneratorService.EPOCH, next >> IDGeneratorService.TIMESTAMP_SHIFT);
+        assertEquals(0, next & IDGeneratorService.MAX_SEQUENCE_ID);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("clockedSequenceGenerators")
+    void shouldReportIdsPerMillisecond(String mode, Function<GeneratorClock, SequenceGenerator> factory) {
+        // Given
+        AtomicLong now = new AtomicLong(IDGeneratorService.EPOCH + 1_000_000);
+        List<Long> idsPerMillisecond = new ArrayList<>();
+        GeneratorMetrics metrics = new GeneratorMetrics(idsPerMillisecond::add);
+        SequenceGenerator sequenceGenerator = factory.apply(
+                new GeneratorClock(now::get, 10, GeneratorClock.BackwardsPolicy.FAIL, 0, metrics));
+
+        // When
+        for (int i = 0; i < 1500; i++) {
+            sequenceGenerator.nextId(0);
+        }
+        now.addAndGet(5);
+        sequenceGenerator.nextIds(0, new long[100]);
+        now.addAndGet(5);
+        sequenceGenerator.nextId(0);
+
+        // Then
+        assertEquals(List.of(1024L, 476L, 100L), idsPerMillisecond);
+        assertEquals(1, metrics.getSequenceOverflowCount());
+        assertEquals(0, metrics.getOverflowWaitCount());
+    }
+}
@@ -0,0 +1,46 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedSequenceGeneratorTest {
+
+    @Test
+    void shouldRejectShardCountsThatDoNotFitTheSequenceBits() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSequenceGenerator(0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSequenceGenerator(3));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSequenceGenerator(1024));
+    }
+
+    @Test
+    void shouldPrefixSequenceWithCallingThreadsShard() {
+        // Given
+        ShardedSequenceGenerator sequenceGenerator = new ShardedSequenceGenerator(8);
+        long expectedShard = Thread.currentThread().threadId() & 7;
+
+        // When
+        long id = sequenceGenerator.nextId(0);
+
+        // Then
+        long sequenceID = id & IDGeneratorService.MAX_SEQUENCE_ID;
+        assertEquals(expectedShard, sequenceID >> 7);
+    }
+
+    @Test
+    void shouldCountShardExhaustion() {
+        // Given
+        ShardedSequenceGenerator sequenceGenerator = new ShardedSequenceGenerator(8);
+        int shard = (int) (Thread.currentThread().threadId() & 7);
+
+        // When
+        long[] ids = new long[1000];
+        sequenceGenerator.nextIds(0, ids);
+
+        // Then
+        assertTrue(sequenceGenerator.getExhaustionCount(shard) > 0);
+        assertEquals(8, sequenceGenerator.getShardCount());
+    }
+}
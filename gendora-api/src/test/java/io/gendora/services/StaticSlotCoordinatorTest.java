@@ -0,0 +1,38 @@
+package io.gendora.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StaticSlotCoordinatorTest {
+
+    @Test
+    void shouldUseConfiguredSlot() {
+        // When
+        StaticSlotCoordinator coordinator = new StaticSlotCoordinator("42", 0, "gendora-api-7");
+
+        // Then
+        assertEquals(42, coordinator.getAllocatedSlot());
+    }
+
+    @Test
+    void shouldDeriveSlotFromHostNameOrdinal() {
+        // When
+        StaticSlotCoordinator coordinator = new StaticSlotCoordinator("", 0, "gendora-api-7");
+        StaticSlotCoordinator withOffset = new StaticSlotCoordinator("", 100, "gendora-api-7");
+
+        // Then
+        assertEquals(7, coordinator.getAllocatedSlot());
+        assertEquals(107, withOffset.getAllocatedSlot());
+    }
+
+    @Test
+    void shouldRejectInvalidSlots() {
+        assertThrows(IllegalArgumentException.class, () -> new StaticSlotCoordinator("1024", 0, "host"));
+        assertThrows(IllegalArgumentException.class, () -> new StaticSlotCoordinator("-1", 0, "host"));
+        assertThrows(IllegalArgumentException.class, () -> new StaticSlotCoordinator("abc", 0, "host"));
+        assertThrows(IllegalArgumentException.class, () -> new StaticSlotCoordinator("", 0, "host"));
+        assertThrows(IllegalArgumentException.class, () -> new StaticSlotCoordinator("", 1020, "gendora-api-7"));
+    }
+}
@@ -0,0 +1,58 @@
+package io.gendora.time;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeSourceTest {
+
+    @Test
+    void shouldStayCloseToWallClockWithMonotonicTimeSource() {
+        // Given
+        MonotonicTimeSource timeSource = new MonotonicTimeSource();
+
+        // When
+        long timestamp = timeSource.currentTimeMillis();
+
+        // Then
+        assertTrue(Math.abs(timestamp - System.currentTimeMillis()) <= 5);
+    }
+
+    @Test
+    void shouldNeverGoBackwardsWithMonotonicTimeSource() {
+        // Given
+        MonotonicTimeSource timeSource = new MonotonicTimeSource();
+        long deadline = System.nanoTime() + 1_500_000_000L;
+
+        // When & Then (spans a resync of the anchor)
+        long previous = timeSource.currentTimeMillis();
+        while (System.nanoTime() < deadline) {
+            long timestamp = timeSource.currentTimeMillis();
+            assertTrue(timestamp >= previous);
+            previous = timestamp;
+        }
+    }
+
+    @Test
+    void shouldRefreshCachedTimeSourceInBackground() throws Exception {
+        // Given
+        AtomicLong now = new AtomicLong(1000);
+
+        try (CachedTimeSource timeSource = new CachedTimeSource(now::get, 100)) {
+            assertEquals(1000, timeSource.currentTimeMillis());
+
+            // When
+            now.set(2000);
+            long deadline = System.currentTimeMillis() + 1000;
+            while (timeSource.currentTimeMillis() != 2000 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+
+            // Then
+            assertEquals(2000, timeSource.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+#!/bin/bash
+
+# Runs the generator benchmark once per thread count and prints the throughput of every generator
+# mode side by side, in million IDs per second. Extra arguments are passed on to Gradle, e.g.
+# -Pjmh.mode=lock-free,sharded to compare only some modes.
+#
+# Usage: ./compare-threads.sh [thread counts, default "1 2 4 8"] [Gradle arguments...]
+
+set -e
+
+THREADS=${1:-"1 2 4 8"}
+shift || true
+
+cd "$(dirname "$0")/.."
+
+for threads in ${THREADS}; do
+  ./gradlew :gendora-bench:jmh -Pjmh.includes=GeneratorBenchmark -Pjmh.threads="${threads}" \
+    -Pjmh.results="results/jmh/generator-${threads}-threads.json" "$@"
+done
+
+printf "%-14s" "mode"
+for threads in ${THREADS}; do
+  printf "%14s" "${threads} threads"
+done
+printf "\n"
+
+modes=$(jq -r '.[].params.mode' "gendora-bench/build/results/jmh/generator-${THREADS%% *}-threads.json")
+for mode in ${modes}; do
+  printf "%-14s" "${mode}"
+  for threads in ${THREADS}; do
+    # Scores are operations per microsecond, i.e. million IDs per second
+    score=$(jq --arg mode "${mode}" '.[] | select(.params.mode == $mode) | .primaryMetric.score' \
+      "gendora-bench/build/results/jmh/generator-${threads}-threads.json")
+    printf "%14.2f" "${score}"
+  done
+  printf "\n"
+done
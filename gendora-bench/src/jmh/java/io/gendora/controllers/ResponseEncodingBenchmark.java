@@ -0,0 +1,67 @@
+package io.gendora.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import io.gendora.services.IdDecoder;
+import io.gendora.services.IdLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialising the single-ID response: {@link IdResponseEncoder}, as the controller does, against
+ * Jackson serialising the equivalent maps, as the controller did before. Allocations per response
+ * show in {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseEncodingBenchmark {
+
+    private static final long EPOCH = 1761955200000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private long id;
+
+    @Setup
+    public void setUp() {
+        id = 1234601900025866L;
+    }
+
+    @Benchmark
+    public int encodeId() {
+        return IdResponseEncoder.forCurrentThread().writeId(id);
+    }
+
+    @Benchmark
+    public int encodeIdWithMetadata() {
+        return IdResponseEncoder.forCurrentThread().writeIdWithMetadata(id, IdDecoder.timestampDelta(id), EPOCH,
+                IdDecoder.datacenterId(id), IdDecoder.machineId(id), IdDecoder.sequenceId(id));
+    }
+
+    @Benchmark
+    public byte[] jacksonId() throws Exception {
+        return objectMapper.writeValueAsBytes(ImmutableMap.of("id", Long.toString(id)));
+    }
+
+    @Benchmark
+    public byte[] jacksonIdWithMetadata() throws Exception {
+        return objectMapper.writeValueAsBytes(ImmutableMap.of(
+                "id", Long.toString(id),
+                "metadata", ImmutableMap.of(
+                        "timestampDelta", Long.toString(IdDecoder.timestampDelta(id)),
+                        "epoch", Long.toString(EPOCH),
+                        "machineID", IdDecoder.machineId(id),
+                        "sequenceID", IdDecoder.sequenceId(id),
+                        "algorithm", "snowflake",
+                        "layout", IdLayout.active().toString()
+                )
+        ));
+    }
+}
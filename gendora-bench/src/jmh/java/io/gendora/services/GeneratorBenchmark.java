@@ -0,0 +1,59 @@
+package io.gendora.services;
+
+import io.gendora.time.WallClockTimeSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link IDGeneratorService#generateId()} per generator implementation, shared by
+ * all benchmark threads as in the API. Run with {@code -Pjmh.threads=<n>} for contention, see
+ * Benchmarks in the README at the root of the repository.
+ *
+ * <p>A single thread asks for far more than the 1024 IDs per millisecond a slot has. Waiting for
+ * the next millisecond would then cap every generator at the same score, so the clock lets the
+ * generators run ahead of it instead: each exhausted sequence space moves them on to the next
+ * millisecond at once. The scores measure the generators, including their rollover to the next
+ * millisecond. {@link SequenceOverflowBenchmark} measures waiting on the real clock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeneratorBenchmark {
+
+    // Far more than a benchmark run can get ahead of the clock, so generators never wait for it
+    private static final long MAX_CLOCK_DRIFT_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    @Param({"synchronized", "lock-free", "sharded", "buffered"})
+    private String mode;
+
+    private SequenceGenerator sequenceGenerator;
+    private IDGeneratorService idGeneratorService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GeneratorClock clock = new GeneratorClock(new WallClockTimeSource(), MAX_CLOCK_DRIFT_MILLIS,
+                GeneratorClock.BackwardsPolicy.FAIL, 0);
+        sequenceGenerator = Generators.create(mode, clock);
+        idGeneratorService = new IDGeneratorService(() -> 42, sequenceGenerator, 10_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Generators.close(sequenceGenerator);
+    }
+
+    @Benchmark
+    public long generateId() {
+        return idGeneratorService.generateId();
+    }
+}
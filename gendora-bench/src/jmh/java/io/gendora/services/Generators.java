@@ -0,0 +1,29 @@
+package io.gendora.services;
+
+/**
+ * Creates the sequence generators selectable with {@code generator.mode} (and
+ * {@code generator.buffer.enabled}) with the defaults of {@code application.properties}, so
+ * benchmarks compare them as deployed.
+ */
+final class Generators {
+
+    private Generators() {
+    }
+
+    static SequenceGenerator create(String mode, GeneratorClock clock) {
+        return switch (mode) {
+            case "synchronized" -> new SynchronizedSequenceGenerator(clock);
+            case "lock-free" -> new LockFreeSequenceGenerator(clock);
+            case "sharded" -> new ShardedSequenceGenerator(ShardedSequenceGenerator.defaultShardCount(), clock);
+            case "buffered" -> new BufferedSequenceGenerator(new SynchronizedSequenceGenerator(clock), clock, 8192, 2048, 50);
+            default -> throw new IllegalArgumentException("Unknown generator mode: " + mode +
+                    " (expected one of: synchronized, lock-free, sharded, buffered)");
+        };
+    }
+
+    static void close(SequenceGenerator sequenceGenerator) throws Exception {
+        if (sequenceGenerator instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.gendora.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding the fields of an ID: the metadata map of {@link IDGeneratorService#getMetadata(long)}
+ * against the primitive accessors the single-ID response uses, and {@link IdDecoder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetadataBenchmark {
+
+    private IDGeneratorService idGeneratorService;
+    private long id;
+
+    @Setup
+    public void setUp() {
+        GeneratorClock clock = new GeneratorClock();
+        idGeneratorService = new IDGeneratorService(() -> 42, new SynchronizedSequenceGenerator(clock), 10_000);
+        id = idGeneratorService.generateId();
+    }
+
+    @Benchmark
+    public Map<String, Object> getMetadata() {
+        return idGeneratorService.getMetadata(id);
+    }
+
+    @Benchmark
+    public void getMetadataFields(Blackhole blackhole) {
+        blackhole.consume(idGeneratorService.getTimestampDelta(id));
+        blackhole.consume(idGeneratorService.getEpoch());
+        blackhole.consume(idGeneratorService.getMachineId(id));
+        blackhole.consume(idGeneratorService.getSequenceId(id));
+    }
+
+    @Benchmark
+    public DecodedId decode() {
+        return IdDecoder.decode(id);
+    }
+}
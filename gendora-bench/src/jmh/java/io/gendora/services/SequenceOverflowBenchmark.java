@@ -0,0 +1,69 @@
+package io.gendora.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursts of IDs larger than the sequence space of a millisecond, which have to continue in the
+ * following milliseconds: as single IDs in a tight loop, and as one batch into a reused array.
+ * Scores are per ID, so they compare directly with {@link GeneratorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SequenceOverflowBenchmark {
+
+    private static final int BURST_SIZE = 4096;
+
+    @Param({"synchronized", "lock-free", "sharded", "buffered"})
+    private String mode;
+
+    // Milliseconds generators may run ahead of the clock instead of waiting, see GeneratorClock
+    @Param({"0", "10"})
+    private long maxClockDriftMillis;
+
+    private SequenceGenerator sequenceGenerator;
+    private IDGeneratorService idGeneratorService;
+    private long[] batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GeneratorClock clock = new GeneratorClock(System::currentTimeMillis, maxClockDriftMillis,
+                GeneratorClock.BackwardsPolicy.FAIL, 0);
+        sequenceGenerator = Generators.create(mode, clock);
+        idGeneratorService = new IDGeneratorService(() -> 42, sequenceGenerator, BURST_SIZE);
+        batch = new long[BURST_SIZE];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Generators.close(sequenceGenerator);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public void singleIdBurst(Blackhole blackhole) {
+        for (int i = 0; i < BURST_SIZE; i++) {
+            blackhole.consume(idGeneratorService.generateId());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public long[] batchBurst() {
+        idGeneratorService.generateIds(batch);
+        return batch;
+    }
+}
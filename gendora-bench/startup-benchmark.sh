@@ -0,0 +1,101 @@
+#!/bin/bash
+
+# Measures the time from launching the API to the first ID it serves, for the plain boot jar, the
+# extracted jar, the extracted jar with Spring AOT and with AOT plus the CDS archive. Every variant
+# is started RUNS times against a local Redis stand-in on its own port, and the median and fastest
+# start are printed. Each run is appended to gendora-bench/build/results/startup/startup.csv as
+# variant,run,milliseconds, so startup regressions can be tracked across changes.
+#
+# Uses redis-server if installed, otherwise a redis:7-alpine container. Requires curl.
+#
+# Usage: ./startup-benchmark.sh [runs, default 5] [variants, default "jar extracted aot aot-cds"]
+
+set -e
+
+RUNS=${1:-5}
+VARIANTS=${2:-"jar extracted aot aot-cds"}
+REDIS_PORT=${REDIS_PORT:-16379}
+SERVER_PORT=${SERVER_PORT:-18080}
+TIMEOUT_SECONDS=60
+
+cd "$(dirname "$0")/.."
+
+API=gendora-api/build
+RESULTS=gendora-bench/build/results/startup
+mkdir -p "${RESULTS}"
+
+redis_pid=
+redis_container=
+stop_redis() {
+  if [ -n "${redis_pid}" ]; then
+    kill "${redis_pid}" 2>/dev/null || true
+  fi
+  if [ -n "${redis_container}" ]; then
+    docker rm -f "${redis_container}" >/dev/null 2>&1 || true
+  fi
+}
+trap stop_redis EXIT
+
+if command -v redis-server >/dev/null; then
+  redis-server --port "${REDIS_PORT}" --save '' --appendonly no >/dev/null &
+  redis_pid=$!
+else
+  redis_container=$(docker run -d --rm -p "${REDIS_PORT}:6379" redis:7-alpine)
+fi
+until (exec 3<>"/dev/tcp/localhost/${REDIS_PORT}") 2>/dev/null; do
+  sleep 0.1
+done
+
+export REDIS_HOST=localhost
+export REDIS_PORT
+
+# The training run of the CDS archive leases its slot from the stand-in as well
+./gradlew :gendora-api:bootJar :gendora-api:cdsArchive -q
+
+command_for() {
+  case "$1" in
+    jar) echo "java -jar ${API}/libs/gendora-api.jar" ;;
+    extracted) echo "java -jar ${API}/extracted/gendora-api.jar" ;;
+    aot) echo "java -Dspring.aot.enabled=true -jar ${API}/extracted/gendora-api.jar" ;;
+    aot-cds) echo "java -XX:SharedArchiveFile=${API}/extracted/gendora-api.jsa -Dspring.aot.enabled=true -jar ${API}/extracted/gendora-api.jar" ;;
+    *) echo "Unknown variant: $1" >&2; exit 1 ;;
+  esac
+}
+
+now_millis() {
+  echo $(($(date +%s%N) / 1000000))
+}
+
+# Starts the API and polls for an ID until one is served, printing the milliseconds that took
+time_to_first_id() {
+  local started app deadline
+  started=$(now_millis)
+  $1 --server.port="${SERVER_PORT}" >"${RESULTS}/$2.log" 2>&1 &
+  app=$!
+  deadline=$((started + TIMEOUT_SECONDS * 1000))
+  until curl -sf -o /dev/null -X POST "http://localhost:${SERVER_PORT}/api/generator/ids"; do
+    if ! kill -0 "${app}" 2>/dev/null || [ "$(now_millis)" -gt "${deadline}" ]; then
+      kill "${app}" 2>/dev/null || true
+      echo "$2 did not serve an ID, see ${RESULTS}/$2.log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  echo $(($(now_millis) - started))
+  # Shut down gracefully, so the slot is released for the next run
+  kill "${app}"
+  wait "${app}" 2>/dev/null || true
+}
+
+printf "%-12s%12s%12s\n" "variant" "median ms" "min ms"
+for variant in ${VARIANTS}; do
+  command=$(command_for "${variant}")
+  times=()
+  for run in $(seq 1 "${RUNS}"); do
+    millis=$(time_to_first_id "${command}" "${variant}")
+    times+=("${millis}")
+    echo "${variant},${run},${millis}" >>"${RESULTS}/startup.csv"
+  done
+  sorted=($(printf "%s\n" "${times[@]}" | sort -n))
+  printf "%-12s%12d%12d\n" "${variant}" "${sorted[$((RUNS / 2))]}" "${sorted[0]}"
+done
@@ -0,0 +1,13 @@
+package io.gendora.client;
+
+import java.io.IOException;
+
+/**
+ * Fetches a block of IDs from the Gendora API, e.g. {@code client::nextIds} of an
+ * {@link IdProtocolClient}.
+ */
+@FunctionalInterface
+public interface IdBlockSource {
+
+    long[] fetch(int count) throws IOException;
+}
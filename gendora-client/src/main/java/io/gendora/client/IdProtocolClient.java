@@ -0,0 +1,141 @@
+package io.gendora.client;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Client for the binary ID protocol served by the Gendora API next to its HTTP endpoints, over
+ * TCP or a Unix domain socket. All integers are big-endian.
+ *
+ * <pre>
+ * Request:  [count: int32]
+ * Response: [count: int32] [id: int64] * count
+ *           or [error: int32] with a negative error code
+ * </pre>
+ *
+ * A client holds a single connection and is safe to share between threads, which take turns on
+ * the connection. Use {@link #nextIdBatches(int...)} to pipeline several requests in one round trip.
+ */
+public class IdProtocolClient implements AutoCloseable {
+
+    public static final int ERROR_INVALID_COUNT = -1;
+    public static final int ERROR_UNAVAILABLE = -2;
+
+    private final SocketChannel channel;
+    private ByteBuffer in = ByteBuffer.allocate(Integer.BYTES + 1024 * Long.BYTES);
+    private final ByteBuffer out = ByteBuffer.allocate(64 * Integer.BYTES);
+
+    private IdProtocolClient(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    public static IdProtocolClient connect(String host, int port) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        return new IdProtocolClient(channel);
+    }
+
+    public static IdProtocolClient connect(Path unixSocket) throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(unixSocket));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new IdProtocolClient(channel);
+    }
+
+    public long nextId() throws IOException {
+        return nextIds(1)[0];
+    }
+
+    public synchronized long[] nextIds(int count) throws IOException {
+        out.clear();
+        out.putInt(count);
+        writeRequests();
+        return readResponse();
+    }
+
+    /**
+     * Sends one request per count before reading any response, and returns the batches in
+     * request order. If the server rejects any of the requests, the first error is thrown once
+     * all responses were read.
+     */
+    public synchronized long[][] nextIdBatches(int... counts) throws IOException {
+        long[][] batches = new long[counts.length][];
+        IdProtocolException failure = null;
+
+        int sent = 0;
+        while (sent < counts.length) {
+            out.clear();
+            int chunkEnd = Math.min(counts.length, sent + out.capacity() / Integer.BYTES);
+            for (int i = sent; i < chunkEnd; i++) {
+                out.putInt(counts[i]);
+            }
+            writeRequests();
+
+            for (int i = sent; i < chunkEnd; i++) {
+                try {
+                    batches[i] = readResponse();
+                } catch (IdProtocolException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            sent = chunkEnd;
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return batches;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeRequests() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    private long[] readResponse() throws IOException {
+        in.clear().limit(Integer.BYTES);
+        readFully();
+        int count = in.getInt(0);
+        if (count < 0) {
+            throw new IdProtocolException(count);
+        }
+
+        int size = count * Long.BYTES;
+        if (in.capacity() < size) {
+            in = ByteBuffer.allocate(size);
+        }
+        in.clear().limit(size);
+        readFully();
+        in.flip();
+
+        long[] ids = new long[count];
+        in.asLongBuffer().get(ids);
+        return ids;
+    }
+
+    private void readFully() throws IOException {
+        while (in.hasRemaining()) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.gendora.client;
+
+import java.io.IOException;
+
+/**
+ * The server answered a request with an error code instead of IDs. The connection stays usable.
+ */
+public class IdProtocolException extends IOException {
+
+    private final int errorCode;
+
+    public IdProtocolException(int errorCode) {
+        super(describe(errorCode));
+        this.errorCode = errorCode;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    private static String describe(int errorCode) {
+        return switch (errorCode) {
+            case IdProtocolClient.ERROR_INVALID_COUNT -> "Server rejected the requested number of IDs";
+            case IdProtocolClient.ERROR_UNAVAILABLE -> "Server could not generate IDs";
+            default -> "Server responded with error " + errorCode;
+        };
+    }
+}
@@ -0,0 +1,234 @@
+package io.gendora.client;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out IDs from blocks prefetched by a background thread, so callers never wait for a round
+ * trip to the Gendora API as long as the cache keeps up.
+ *
+ * <p>Callers claim IDs from the current block with a single atomic increment. Once fewer than
+ * {@code lowWatermark} IDs are queued behind the current block, the refill thread is woken up and
+ * fetches blocks of {@code blockSize} IDs until at least {@code highWatermark} IDs are queued.
+ * Blocks are dropped once they were fetched more than {@code maxAgeMillis} ago, so the IDs handed
+ * out stay close to wall-clock order. When the cache runs dry, the caller fetches a block inline.
+ *
+ * <p>The cache is safe to share between threads. Closing it stops the refill thread but leaves the
+ * source open.
+ */
+public class PrefetchingIdCache implements AutoCloseable {
+
+    private static final long RETRY_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final class Block {
+        final long[] ids;
+        final long fetchedAtNanos;
+        final AtomicInteger next = new AtomicInteger();
+
+        Block(long[] ids, long fetchedAtNanos) {
+            this.ids = ids;
+            this.fetchedAtNanos = fetchedAtNanos;
+        }
+    }
+
+    private final IdBlockSource source;
+    private final int blockSize;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final long maxAgeNanos;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentLinkedDeque<Block> blocks = new ConcurrentLinkedDeque<>();
+    private final AtomicReference<Block> current = new AtomicReference<>();
+    private final AtomicLong queuedIds = new AtomicLong();
+    private final Object fetchLock = new Object();
+
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder refillFailures = new LongAdder();
+
+    private final Thread refiller;
+    private volatile boolean closed;
+
+    public PrefetchingIdCache(IdBlockSource source, int blockSize, int lowWatermark, int highWatermark,
+                              long maxAgeMillis) {
+        this(source, blockSize, lowWatermark, highWatermark, maxAgeMillis, System::nanoTime);
+    }
+
+    PrefetchingIdCache(IdBlockSource source, int blockSize, int lowWatermark, int highWatermark,
+                       long maxAgeMillis, LongSupplier nanoClock) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        if (lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("Watermarks must satisfy 0 <= low < high: "
+                    + lowWatermark + ", " + highWatermark);
+        }
+        if (maxAgeMillis < 1) {
+            throw new IllegalArgumentException("Max age must be positive: " + maxAgeMillis);
+        }
+
+        this.source = source;
+        this.blockSize = blockSize;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        this.nanoClock = nanoClock;
+
+        this.refiller = new Thread(this::refill, "gendora-id-prefetch");
+        this.refiller.setDaemon(true);
+        this.refiller.start();
+    }
+
+    public long nextId() throws IOException {
+        while (true) {
+            Block block = current.get();
+            if (block != null) {
+                if (isExpired(block)) {
+                    if (current.compareAndSet(block, null)) {
+                        discard(block);
+                    }
+                    continue;
+                }
+
+                int index = block.next.getAndIncrement();
+                if (index < block.ids.length) {
+                    return block.ids[index];
+                }
+                current.compareAndSet(block, null);
+            }
+
+            Block nextBlock = takeBlock();
+            if (nextBlock == null) {
+                misses.increment();
+                fetchInline();
+            } else if (!current.compareAndSet(null, nextBlock)) {
+                // Another caller installed a block first, keep ours next in line
+                queuedIds.addAndGet(nextBlock.ids.length);
+                blocks.offerFirst(nextBlock);
+            }
+        }
+    }
+
+    /**
+     * The number of IDs queued behind the block currently being handed out.
+     */
+    public long getQueuedIds() {
+        return queuedIds.get();
+    }
+
+    /**
+     * The number of times a caller found the cache empty and fetched a block itself.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The number of IDs dropped unused because their block exceeded the max age.
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    public long getFetchCount() {
+        return fetches.sum();
+    }
+
+    public long getRefillFailureCount() {
+        return refillFailures.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(refiller);
+        try {
+            refiller.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Block takeBlock() {
+        Block block;
+        while ((block = blocks.pollFirst()) != null) {
+            long remaining = queuedIds.addAndGet(-block.ids.length);
+            if (remaining < lowWatermark) {
+                LockSupport.unpark(refiller);
+            }
+            if (!isExpired(block)) {
+                return block;
+            }
+            discard(block);
+        }
+        LockSupport.unpark(refiller);
+        return null;
+    }
+
+    private void fetchInline() throws IOException {
+        synchronized (fetchLock) {
+            // The refill thread may have filled the queue while we waited for the lock
+            if (blocks.isEmpty()) {
+                fetchBlock();
+            }
+        }
+    }
+
+    private void refill() {
+        while (!closed) {
+            evictExpiredBlocks();
+            try {
+                while (!closed && queuedIds.get() < highWatermark) {
+                    synchronized (fetchLock) {
+                        fetchBlock();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                refillFailures.increment();
+                LockSupport.parkNanos(this, RETRY_DELAY_NANOS);
+                continue;
+            }
+            // Wake up periodically to replace blocks that expired while the cache sat idle
+            LockSupport.parkNanos(this, maxAgeNanos / 2);
+        }
+    }
+
+    private void fetchBlock() throws IOException {
+        long[] ids = source.fetch(blockSize);
+        fetches.increment();
+        if (ids.length > 0) {
+            queuedIds.addAndGet(ids.length);
+            blocks.offerLast(new Block(ids, nanoClock.getAsLong()));
+        }
+    }
+
+    private void evictExpiredBlocks() {
+        Block block;
+        while ((block = blocks.peekFirst()) != null && isExpired(block)) {
+            if (blocks.removeFirstOccurrence(block)) {
+                queuedIds.addAndGet(-block.ids.length);
+                discard(block);
+            }
+        }
+    }
+
+    private boolean isExpired(Block block) {
+        return nanoClock.getAsLong() - block.fetchedAtNanos > maxAgeNanos;
+    }
+
+    private void discard(Block block) {
+        int consumed = block.next.getAndAdd(block.ids.length);
+        if (consumed < block.ids.length) {
+            discarded.add(block.ids.length - consumed);
+        }
+    }
+}
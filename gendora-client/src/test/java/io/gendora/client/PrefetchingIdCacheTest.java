@@ -0,0 +1,160 @@
+package io.gendora.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefetchingIdCacheTest {
+
+    private final AtomicLong nextSourceId = new AtomicLong();
+
+    private long[] fetchConsecutiveIds(int count) {
+        long first = nextSourceId.getAndAdd(count);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    @Test
+    void shouldPrefetchUpToHighWatermark() throws Exception {
+        // Given
+        try (PrefetchingIdCache cache = new PrefetchingIdCache(this::fetchConsecutiveIds, 100, 200, 500, 60_000)) {
+
+            // When
+            awaitQueuedIds(cache, 500);
+
+            // Then
+            assertEquals(500, cache.getQueuedIds());
+            assertEquals(5, cache.getFetchCount());
+            assertEquals(0, cache.getMissCount());
+        }
+    }
+
+    @Test
+    void shouldHandOutIdsInFetchOrder() throws Exception {
+        // Given
+        try (PrefetchingIdCache cache = new PrefetchingIdCache(this::fetchConsecutiveIds, 100, 200, 500, 60_000)) {
+
+            // When
+            long[] ids = new long[5000];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = cache.nextId();
+            }
+
+            // Then
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(i, ids[i]);
+            }
+        }
+    }
+
+    @Test
+    void shouldRefillInBackgroundBeforeRunningDry() throws Exception {
+        // Given
+        try (PrefetchingIdCache cache = new PrefetchingIdCache(this::fetchConsecutiveIds, 100, 400, 800, 60_000)) {
+            awaitQueuedIds(cache, 800);
+
+            // When
+            for (int i = 0; i < 500; i++) {
+                cache.nextId();
+            }
+            awaitQueuedIds(cache, 800);
+
+            // Then
+            assertEquals(0, cache.getMissCount());
+            assertTrue(cache.getFetchCount() > 8);
+        }
+    }
+
+    @Test
+    void shouldDiscardBlocksOlderThanMaxAge() throws Exception {
+        // Given
+        AtomicLong nanoTime = new AtomicLong();
+        try (PrefetchingIdCache cache = new PrefetchingIdCache(this::fetchConsecutiveIds, 100, 200, 500, 1000,
+                nanoTime::get)) {
+            awaitQueuedIds(cache, 500);
+            long first = cache.nextId();
+
+            // When
+            nanoTime.addAndGet(1_000_000_001L);
+            long afterExpiry = cache.nextId();
+
+            // Then
+            assertEquals(0, first);
+            assertEquals(500, afterExpiry);
+            assertEquals(499, cache.getDiscardedCount());
+        }
+    }
+
+    @Test
+    void shouldHandOutUniqueIdsConcurrently() throws Exception {
+        // Given
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+
+        try (PrefetchingIdCache cache = new PrefetchingIdCache(this::fetchConsecutiveIds, 256, 1024, 4096, 60_000)) {
+
+            // When
+            for (int t = 0; t < 8; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 20_000; i++) {
+                            ids.add(cache.nextId());
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        // Then
+        assertEquals(8 * 20_000, ids.size());
+    }
+
+    @Test
+    void shouldFailWhenSourceFailsAndCacheIsEmpty() {
+        // Given
+        try (PrefetchingIdCache cache = new PrefetchingIdCache(count -> {
+            throw new IOException("Connection refused");
+        }, 100, 200, 500, 60_000)) {
+
+            // When & Then
+            assertThrows(IOException.class, cache::nextId);
+            assertEquals(1, cache.getMissCount());
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PrefetchingIdCache(this::fetchConsecutiveIds, 0, 200, 500, 1000));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PrefetchingIdCache(this::fetchConsecutiveIds, 100, 500, 500, 1000));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PrefetchingIdCache(this::fetchConsecutiveIds, 100, 200, 500, 0));
+    }
+
+    private static void awaitQueuedIds(PrefetchingIdCache cache, long queuedIds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getQueuedIds() < queuedIds && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.gendora.load;
+
+import io.gendora.client.IdBlockSource;
+import io.gendora.load.LoadOptions.Endpoint;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Fetches IDs from one of the HTTP endpoints. Safe to share between workers, the client keeps a
+ * connection per concurrent request.
+ */
+public class HttpIdSource implements IdBlockSource {
+
+    private static final int MAX_ERROR_BODY = 200;
+
+    private final HttpClient client;
+    private final Endpoint endpoint;
+    private final URI baseUrl;
+
+    public HttpIdSource(HttpClient client, Endpoint endpoint, URI baseUrl) {
+        if (endpoint == Endpoint.PROTOCOL) {
+            throw new IllegalArgumentException("Not an HTTP endpoint: " + endpoint);
+        }
+        this.client = client;
+        this.endpoint = endpoint;
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public long[] fetch(int count) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uriFor(count))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .header("Accept", endpoint == Endpoint.STREAM ? "application/octet-stream" : "application/json")
+                .build();
+
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + request.uri());
+        }
+
+        byte[] body = response.body();
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + request.uri() + ": "
+                    + new String(body, 0, Math.min(body.length, MAX_ERROR_BODY), StandardCharsets.UTF_8));
+        }
+
+        long[] ids = endpoint == Endpoint.STREAM ? parseBinary(body) : parseJson(body);
+        int expected = endpoint == Endpoint.SINGLE ? 1 : count;
+        if (ids.length != expected) {
+            throw new IOException("Expected " + expected + " IDs from " + request.uri() + ", got " + ids.length);
+        }
+        return ids;
+    }
+
+    private URI uriFor(int count) {
+        return switch (endpoint) {
+            case SINGLE -> URI.create(baseUrl + "/generator/ids");
+            case BATCH -> URI.create(baseUrl + "/generator/ids?count=" + count);
+            case STREAM -> URI.create(baseUrl + "/generator/ids/stream?count=" + count + "&format=binary");
+            case PROTOCOL -> throw new IllegalStateException();
+        };
+    }
+
+    /**
+     * Reads the IDs of {@code {"id":"..."}} and {@code {"ids":["...", ...]}}: every string of
+     * digits in the body. Parsing by hand keeps the driver from spending its CPU on a JSON tree
+     * per response.
+     */
+    static long[] parseJson(byte[] body) throws IOException {
+        long[] ids = new long[16];
+        int count = 0;
+        int i = 0;
+        while (i < body.length) {
+            if (body[i++] != '"' || i >= body.length || !isDigit(body[i])) {
+                continue;
+            }
+
+            long id = 0;
+            while (i < body.length && isDigit(body[i])) {
+                id = Math.addExact(Math.multiplyExact(id, 10), body[i++] - '0');
+            }
+            if (i >= body.length || body[i] != '"') {
+                throw new IOException("Malformed ID in response: " + new String(body, StandardCharsets.UTF_8));
+            }
+            i++;
+
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    static long[] parseBinary(byte[] body) throws IOException {
+        if (body.length % Long.BYTES != 0) {
+            throw new IOException("Binary response of " + body.length + " bytes is not a whole number of IDs");
+        }
+        LongBuffer longs = ByteBuffer.wrap(body).asLongBuffer();
+        long[] ids = new long[longs.remaining()];
+        longs.get(ids);
+        return ids;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
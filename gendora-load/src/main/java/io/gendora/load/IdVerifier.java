@@ -0,0 +1,154 @@
+package io.gendora.load;
+
+import io.gendora.services.IdLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks IDs while they arrive: that no ID was handed out before, to any worker and so by any
+ * instance of the fleet, and that the timestamps of the IDs a worker gets from a slot do not go
+ * back.
+ *
+ * <p>A worker sends its requests one after the other, so each request was served after the ones
+ * before it. A slot (datacenter and machine ID) does not go back in time, also when it moves to
+ * another instance, so the timestamps of a slot must not decrease within the requests of a worker.
+ * Requests of different workers overlap and are not compared.
+ *
+ * <p>Only timestamps are compared, as the sequence bits do not increase across the requests of a
+ * worker in every mode: sharded mode and namespaces put the shard or namespace in the high
+ * sequence bits, so an ID from another shard may be lower within the same millisecond. With a
+ * clock drift budget, their sequence states also run ahead of the clock independently, up to the
+ * budget, which is why timestamps may go back by up to {@code maxClockDriftMillis}.
+ */
+public class IdVerifier {
+
+    private static final int MAX_SAMPLES = 20;
+
+    private final OffHeapLongSet seen;
+    private final int nodeIdShift;
+    private final int nodeCount;
+    private final int timestampShift;
+    private final long maxClockDriftMillis;
+
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder outOfOrder = new LongAdder();
+    private final AtomicInteger sampleCount = new AtomicInteger();
+    private final ConcurrentLinkedQueue<String> samples = new ConcurrentLinkedQueue<>();
+    private final List<Tracker> trackers = new CopyOnWriteArrayList<>();
+
+    public IdVerifier(IdLayout layout, long expectedIds) {
+        this(layout, expectedIds, 0);
+    }
+
+    /**
+     * @param maxClockDriftMillis how far the timestamps of a slot may go back, see
+     *                            {@code generator.max-clock-drift-ms} of the API
+     */
+    public IdVerifier(IdLayout layout, long expectedIds, long maxClockDriftMillis) {
+        if (maxClockDriftMillis < 0) {
+            throw new IllegalArgumentException("Maximum clock drift must not be negative: " + maxClockDriftMillis);
+        }
+
+        this.seen = new OffHeapLongSet(expectedIds);
+        this.nodeIdShift = layout.machineIdShift();
+        this.nodeCount = 1 << (layout.datacenterIdBits() + layout.machineIdBits());
+        this.timestampShift = layout.timestampShift();
+        this.maxClockDriftMillis = maxClockDriftMillis;
+    }
+
+    /**
+     * Creates the tracker a worker checks its IDs with.
+     */
+    public Tracker newTracker() {
+        Tracker tracker = new Tracker();
+        trackers.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * Keeps the latest timestamp a worker got from each slot. Not thread-safe, each worker has its
+     * own.
+     */
+    public class Tracker {
+
+        // Relative to the epoch of the layout, as in the IDs
+        private final long[] lastTimestamps = new long[nodeCount];
+        private final long[] counts = new long[nodeCount];
+
+        /**
+         * Checks the IDs of a response, in the order they were handed out.
+         *
+         * @throws IllegalStateException if more IDs arrived than the verifier was sized for
+         */
+        public void verify(long[] ids) {
+            for (long id : ids) {
+                int slot = (int) (id >>> nodeIdShift) & (nodeCount - 1);
+                counts[slot]++;
+                if (!seen.add(id)) {
+                    duplicates.increment();
+                    sample("Duplicate ID " + id + " of slot " + slot);
+                    continue;
+                }
+                long timestamp = id >>> timestampShift;
+                if (timestamp < lastTimestamps[slot] - maxClockDriftMillis) {
+                    outOfOrder.increment();
+                    sample("ID " + id + " of slot " + slot + " at timestamp " + timestamp + " after "
+                            + lastTimestamps[slot]);
+                    continue;
+                }
+                lastTimestamps[slot] = Math.max(lastTimestamps[slot], timestamp);
+            }
+        }
+    }
+
+    public long getUniqueCount() {
+        return seen.size();
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    public long getOutOfOrderCount() {
+        return outOfOrder.sum();
+    }
+
+    /**
+     * The first duplicates and out of order IDs found.
+     */
+    public List<String> getSamples() {
+        return new ArrayList<>(samples);
+    }
+
+    /**
+     * IDs received per slot, to be read once the workers stopped.
+     */
+    public long[] getCountsPerSlot() {
+        long[] counts = new long[nodeCount];
+        for (Tracker tracker : trackers) {
+            for (int slot = 0; slot < nodeCount; slot++) {
+                counts[slot] += tracker.counts[slot];
+            }
+        }
+        return counts;
+    }
+
+    public long getMaxIds() {
+        return seen.getMaxSize();
+    }
+
+    public long getMemoryBytes() {
+        return seen.getMemoryBytes();
+    }
+
+    private void sample(String message) {
+        if (sampleCount.getAndIncrement() < MAX_SAMPLES) {
+            samples.add(message);
+        }
+    }
+}
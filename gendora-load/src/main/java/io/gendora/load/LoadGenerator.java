@@ -0,0 +1,309 @@
+package io.gendora.load;
+
+import io.gendora.client.IdBlockSource;
+import io.gendora.client.IdProtocolClient;
+import io.gendora.load.LoadOptions.Endpoint;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives load against the Gendora API from a fixed number of workers and checks every ID handed
+ * out with an {@link IdVerifier}, so no ID needs to be logged or written to disk.
+ *
+ * <p>Latencies go into an HdrHistogram. Without a rate, each worker sends its next request as soon
+ * as the last one was answered. With a rate, requests are due at fixed intervals and latency is
+ * measured from when a request was due rather than when it was sent, so a stalled server is not
+ * hidden by the requests it kept the workers from sending (coordinated omission).
+ *
+ * <p>Exits with 0 if no ID was duplicated or out of order and the error rate stayed below the
+ * maximum, 1 otherwise, and 2 on invalid options.
+ */
+public class LoadGenerator {
+
+    // Latencies are recorded in microseconds, up to a minute, at 3 significant digits
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int MAX_ERROR_SAMPLES = 5;
+
+    private final LoadOptions options;
+    private final PrintStream out;
+    private final IdVerifier verifier;
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder ids = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final List<String> errorSamples = new ArrayList<>();
+    private final AtomicReference<String> abortReason = new AtomicReference<>();
+    private volatile boolean running = true;
+
+    public LoadGenerator(LoadOptions options, PrintStream out) {
+        this.options = options;
+        this.out = out;
+        this.verifier = new IdVerifier(options.layout(), options.expectedIds(), options.maxClockDriftMillis());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.print(LoadOptions.USAGE);
+            return;
+        }
+
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        boolean passed = new LoadGenerator(options, System.out).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Runs the warm-up and the measured duration, prints the report and returns whether the run
+     * passed.
+     */
+    public boolean run() throws Exception {
+        out.printf("Loading %s with %d workers for %d s after %d s of warm-up, room for %,d IDs (%s off-heap)%n",
+                describeTarget(), options.threads(), options.duration().toSeconds(), options.warmup().toSeconds(),
+                verifier.getMaxIds(), formatBytes(verifier.getMemoryBytes()));
+
+        HttpClient httpClient = options.endpoint() == Endpoint.PROTOCOL ? null : HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long startNanos = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.threads(); i++) {
+            int worker = i;
+            workers.add(Thread.ofPlatform().name("load-" + i).start(() -> work(worker, httpClient, startNanos)));
+        }
+
+        // Latencies and counts of the warm-up are dropped, its IDs are still verified
+        long warmupEndNanos = startNanos + options.warmup().toNanos();
+        sleepUntil(warmupEndNanos);
+        recorder.getIntervalHistogram();
+        long warmupRequests = requests.sum();
+        long warmupIds = ids.sum();
+        long warmupErrors = errors.sum();
+
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        Histogram interval = null;
+        long endNanos = warmupEndNanos + options.duration().toNanos();
+        long reportNanos = warmupEndNanos;
+        long lastRequests = warmupRequests;
+        while (running && System.nanoTime() < endNanos) {
+            reportNanos = Math.min(reportNanos + options.reportInterval().toNanos(), endNanos);
+            sleepUntil(reportNanos);
+
+            interval = recorder.getIntervalHistogram(interval);
+            total.add(interval);
+            long currentRequests = requests.sum();
+            out.printf("[%4d s] %,10.0f req/s  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms  errors %,d%n",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - warmupEndNanos),
+                    (currentRequests - lastRequests) / (options.reportInterval().toNanos() / 1e9),
+                    millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                    millis(interval.getMaxValue()), errors.sum() - warmupErrors);
+            lastRequests = currentRequests;
+        }
+
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double measuredSeconds = (Math.min(System.nanoTime(), endNanos) - warmupEndNanos) / 1e9;
+        total.add(recorder.getIntervalHistogram(interval));
+        if (httpClient != null) {
+            httpClient.close();
+        }
+
+        return report(total, requests.sum() - warmupRequests, ids.sum() - warmupIds,
+                errors.sum() - warmupErrors, measuredSeconds);
+    }
+
+    private void work(int worker, HttpClient httpClient, long startNanos) {
+        IdVerifier.Tracker tracker = verifier.newTracker();
+        IdProtocolClient protocolClient = null;
+        try {
+            IdBlockSource source;
+            if (httpClient == null) {
+                protocolClient = IdProtocolClient.connect(options.protocolHost(), options.protocolPort());
+                source = protocolClient::nextIds;
+            } else {
+                source = new HttpIdSource(httpClient, options.endpoint(), options.url());
+            }
+
+            long intervalNanos = options.rate() == 0 ? 0 : TimeUnit.SECONDS.toNanos(options.threads()) / options.rate();
+            // Spreads the workers over the interval rather than sending all their requests at once
+            long dueNanos = startNanos + intervalNanos * worker / options.threads();
+            while (running) {
+                long sentNanos;
+                if (intervalNanos > 0) {
+                    sleepUntil(dueNanos);
+                    if (!running) {
+                        break;
+                    }
+                    sentNanos = dueNanos;
+                    dueNanos += intervalNanos;
+                } else {
+                    sentNanos = System.nanoTime();
+                }
+
+                long[] batch;
+                try {
+                    batch = source.fetch(options.idsPerRequest());
+                } catch (IOException e) {
+                    if (!running) {
+                        break;
+                    }
+                    requests.increment();
+                    errors.increment();
+                    sampleError(e.toString());
+                    continue;
+                }
+                recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentNanos),
+                        MAX_LATENCY_MICROS));
+                requests.increment();
+                ids.add(batch.length);
+                try {
+                    tracker.verify(batch);
+                } catch (IllegalStateException e) {
+                    abort("Room for " + verifier.getMaxIds() + " IDs used up, raise --expected-ids");
+                }
+            }
+        } catch (IOException e) {
+            abort("Cannot connect to " + describeTarget() + ": " + e);
+        } finally {
+            if (protocolClient != null) {
+                try {
+                    protocolClient.close();
+                } catch (IOException e) {
+                    // Only matters for the server
+                }
+            }
+        }
+    }
+
+    private boolean report(Histogram latencies, long measuredRequests, long measuredIds, long measuredErrors,
+                           double seconds) throws IOException {
+        double errorRate = measuredRequests == 0 ? 0 : (double) measuredErrors / measuredRequests;
+
+        out.println();
+        out.printf("=== %s, %d workers, %.0f s ===%n", describeTarget(), options.threads(), seconds);
+        out.printf("Requests:       %,d (%,.0f req/s)%n", measuredRequests, measuredRequests / seconds);
+        out.printf("IDs:            %,d (%,.0f IDs/s)%n", measuredIds, measuredIds / seconds);
+        out.printf("Errors:         %,d (%.3f%%)%n", measuredErrors, errorRate * 100);
+        for (String sample : errorSamples()) {
+            out.println("  " + sample);
+        }
+        out.printf("Latency (ms):   p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  p99.99 %.3f  max %.3f%n",
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getValueAtPercentile(99.99)), millis(latencies.getMaxValue()));
+
+        out.printf("Verified IDs:   %,d unique, including the warm-up%n", verifier.getUniqueCount());
+        out.printf("Duplicates:     %,d%n", verifier.getDuplicateCount());
+        out.printf("Out of order:   %,d%n", verifier.getOutOfOrderCount());
+        for (String sample : verifier.getSamples()) {
+            out.println("  " + sample);
+        }
+        printSlots();
+
+        if (options.histogram() != null) {
+            try (PrintStream histogram = new PrintStream(options.histogram().toFile())) {
+                // Values in milliseconds, e.g. for the HdrHistogram plotter
+                latencies.outputPercentileDistribution(histogram, 1000.0);
+            }
+            out.println("Histogram:      " + options.histogram());
+        }
+
+        String aborted = abortReason.get();
+        boolean passed = aborted == null
+                && verifier.getDuplicateCount() == 0
+                && verifier.getOutOfOrderCount() == 0
+                && errorRate <= options.maxErrorRate();
+        out.println();
+        if (aborted != null) {
+            out.println("Stopped early: " + aborted);
+        }
+        out.println(passed ? "Result: PASS ✓" : "Result: FAIL ✗");
+        return passed;
+    }
+
+    private void printSlots() {
+        long[] countsPerSlot = verifier.getCountsPerSlot();
+        int slots = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (long count : countsPerSlot) {
+            if (count > 0) {
+                slots++;
+                min = Math.min(min, count);
+                max = Math.max(max, count);
+            }
+        }
+        if (slots > 0) {
+            out.printf("Slots:          %d (%,d to %,d IDs each)%n", slots, min, max);
+        }
+    }
+
+    private String describeTarget() {
+        return options.endpoint() == Endpoint.PROTOCOL
+                ? "protocol " + options.protocolHost() + ":" + options.protocolPort()
+                : options.endpoint().name().toLowerCase(Locale.ROOT) + " " + options.url();
+    }
+
+    private void sampleError(String message) {
+        synchronized (errorSamples) {
+            if (errorSamples.size() < MAX_ERROR_SAMPLES) {
+                errorSamples.add(message);
+            }
+        }
+    }
+
+    private List<String> errorSamples() {
+        synchronized (errorSamples) {
+            return List.copyOf(errorSamples);
+        }
+    }
+
+    private void abort(String reason) {
+        if (abortReason.compareAndSet(null, reason)) {
+            out.println("Stopping: " + reason);
+        }
+        running = false;
+    }
+
+    private void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while (running && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String formatBytes(long bytes) {
+        return bytes >= 1L << 30
+                ? String.format("%.1f GiB", bytes / (double) (1L << 30))
+                : String.format("%.0f MiB", bytes / (double) (1L << 20));
+    }
+}
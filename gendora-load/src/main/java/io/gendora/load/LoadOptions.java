@@ -0,0 +1,154 @@
+package io.gendora.load;
+
+import io.gendora.services.IdLayout;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options of the {@link LoadGenerator}, given as {@code --name value} or
+ * {@code --name=value}.
+ */
+public record LoadOptions(
+        Endpoint endpoint,
+        URI url,
+        String protocolHost,
+        int protocolPort,
+        int count,
+        int threads,
+        Duration duration,
+        Duration warmup,
+        int rate,
+        long expectedIds,
+        IdLayout layout,
+        long maxClockDriftMillis,
+        Duration reportInterval,
+        double maxErrorRate,
+        Path histogram) {
+
+    public enum Endpoint {
+        /** {@code POST /generator/ids}, one ID per request. */
+        SINGLE,
+        /** {@code POST /generator/ids?count=N}, a JSON array of IDs. */
+        BATCH,
+        /** {@code POST /generator/ids/stream?count=N&format=binary}, big-endian longs. */
+        STREAM,
+        /** The binary protocol, one connection per worker. */
+        PROTOCOL
+    }
+
+    static final String USAGE = """
+            Usage: gendora-load [options]
+              --endpoint single|batch|stream|protocol  Endpoint to load (default: single)
+              --url URL                 Base URL of the HTTP API (default: http://localhost/api)
+              --protocol HOST:PORT      Address of the binary protocol (default: localhost:9090)
+              --count N                 IDs per request, except for single (default: 100)
+              --threads N               Workers, each sending one request at a time (default: 64)
+              --duration SECONDS        Measured duration (default: 60)
+              --warmup SECONDS          Duration before measuring, IDs are verified all along (default: 10)
+              --rate N                  Requests per second over all workers, 0 for as many as
+                                        the workers get answered (default: 0)
+              --expected-ids N          IDs to make room for in the uniqueness check, at
+                                        about 11 bytes each off the heap (default: 50000000)
+              --layout LAYOUT           ID layout of the API, see generator.layout (default: default)
+              --max-clock-drift MS      How far the timestamps of a slot may go back within a
+                                        worker, see generator.max-clock-drift-ms (default: 0)
+              --report-interval SECONDS Interval of progress lines (default: 5)
+              --max-error-rate RATE     Share of failed requests that fails the run (default: 0.001)
+              --histogram FILE          Writes the latency percentile distribution to FILE
+            """;
+
+    private static final Set<String> NAMES = Set.of("endpoint", "url", "protocol", "count", "threads",
+            "duration", "warmup", "rate", "expected-ids", "layout", "max-clock-drift", "report-interval",
+            "max-error-rate", "histogram");
+
+    public LoadOptions {
+        if (count < 1) {
+            throw new IllegalArgumentException("IDs per request must be positive: " + count);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive: " + duration.toSeconds());
+        }
+        if (warmup.isNegative()) {
+            throw new IllegalArgumentException("Warm-up must not be negative: " + warmup.toSeconds());
+        }
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate must not be negative: " + rate);
+        }
+        if (maxClockDriftMillis < 0) {
+            throw new IllegalArgumentException("Maximum clock drift must not be negative: " + maxClockDriftMillis);
+        }
+        if (reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("Report interval must be positive: " + reportInterval.toSeconds());
+        }
+    }
+
+    public static LoadOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+
+            String name = arg.substring(2);
+            String value;
+            int separator = name.indexOf('=');
+            if (separator >= 0) {
+                value = name.substring(separator + 1);
+                name = name.substring(0, separator);
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value of --" + name);
+            }
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+            values.put(name, value);
+        }
+
+        String protocol = values.getOrDefault("protocol", "localhost:9090");
+        int portSeparator = protocol.lastIndexOf(':');
+        if (portSeparator < 0) {
+            throw new IllegalArgumentException("Protocol address must be HOST:PORT: " + protocol);
+        }
+        String histogram = values.get("histogram");
+
+        return new LoadOptions(
+                Endpoint.valueOf(values.getOrDefault("endpoint", "single").toUpperCase(Locale.ROOT)),
+                URI.create(stripTrailingSlash(values.getOrDefault("url", "http://localhost/api"))),
+                protocol.substring(0, portSeparator),
+                Integer.parseInt(protocol.substring(portSeparator + 1)),
+                Integer.parseInt(values.getOrDefault("count", "100")),
+                Integer.parseInt(values.getOrDefault("threads", "64")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10"))),
+                Integer.parseInt(values.getOrDefault("rate", "0")),
+                Long.parseLong(values.getOrDefault("expected-ids", "50000000")),
+                IdLayout.parse(values.getOrDefault("layout", "default")),
+                Long.parseLong(values.getOrDefault("max-clock-drift", "0")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("report-interval", "5"))),
+                Double.parseDouble(values.getOrDefault("max-error-rate", "0.001")),
+                histogram == null ? null : Path.of(histogram));
+    }
+
+    /**
+     * IDs asked for per request.
+     */
+    public int idsPerRequest() {
+        return endpoint == Endpoint.SINGLE ? 1 : count;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,143 @@
+package io.gendora.load;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Set of longs for hundreds of millions of IDs, kept off the heap in direct buffers so it neither
+ * needs a heap that large nor adds to the work of the garbage collector, at 8 bytes per slot and
+ * no object per value.
+ *
+ * <p>Open addressing with linear probing, safe for concurrent adds without locks: an empty slot is
+ * taken with a compare-and-set from 0, so 0 cannot be added (no ID is 0 past the epoch). Values
+ * are never removed. The table is sized for {@code expectedSize} values at a load factor of 0.75
+ * and refuses values past that instead of growing.
+ */
+public class OffHeapLongSet {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long EMPTY = 0;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    // 2^27 slots of 8 bytes, 1 GiB per buffer, as a buffer addresses at most 2 GiB
+    private static final int SEGMENT_BITS = 27;
+
+    private final ByteBuffer[] segments;
+    private final int segmentBits;
+    private final long segmentMask;
+    private final long capacity;
+    private final long maxSize;
+    private final AtomicLong size = new AtomicLong();
+
+    public OffHeapLongSet(long expectedSize) {
+        this(expectedSize, SEGMENT_BITS);
+    }
+
+    OffHeapLongSet(long expectedSize, int segmentBits) {
+        if (expectedSize < 1) {
+            throw new IllegalArgumentException("Expected size must be positive: " + expectedSize);
+        }
+
+        this.capacity = Math.max(16, (long) Math.ceil(expectedSize / MAX_LOAD_FACTOR));
+        this.maxSize = (long) (capacity * MAX_LOAD_FACTOR);
+        this.segmentBits = segmentBits;
+        this.segmentMask = (1L << segmentBits) - 1;
+
+        int segmentCount = (int) ((capacity + segmentMask) >>> segmentBits);
+        segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long slots = Math.min(capacity - ((long) i << segmentBits), 1L << segmentBits);
+            // Zeroed, i.e. empty, on allocation; aligned so compare-and-set works on every slot
+            segments[i] = ByteBuffer.allocateDirect((int) (slots * Long.BYTES) + Long.BYTES - 1)
+                    .alignedSlice(Long.BYTES);
+        }
+    }
+
+    /**
+     * Adds the value, returning {@code false} if it was added before.
+     *
+     * @throws IllegalStateException if the set holds as many values as it was sized for already
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            throw new IllegalArgumentException("0 cannot be added");
+        }
+
+        long index = indexOf(value);
+        while (true) {
+            ByteBuffer segment = segments[(int) (index >>> segmentBits)];
+            int offset = (int) (index & segmentMask) * Long.BYTES;
+            long current = (long) LONGS.getAcquire(segment, offset);
+            if (current == value) {
+                return false;
+            }
+            if (current != EMPTY) {
+                index = index + 1 == capacity ? 0 : index + 1;
+                continue;
+            }
+
+            // Reserves room before taking the slot, so concurrent adds cannot fill the table past
+            // its load factor
+            if (size.incrementAndGet() > maxSize) {
+                size.decrementAndGet();
+                throw new IllegalStateException("Set is full with " + maxSize + " values");
+            }
+            if (LONGS.compareAndSet(segment, offset, EMPTY, value)) {
+                return true;
+            }
+            // Lost the slot to a concurrent add, which may have added the same value
+            size.decrementAndGet();
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return false;
+        }
+
+        long index = indexOf(value);
+        while (true) {
+            long current = (long) LONGS.getAcquire(segments[(int) (index >>> segmentBits)],
+                    (int) (index & segmentMask) * Long.BYTES);
+            if (current == value) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            index = index + 1 == capacity ? 0 : index + 1;
+        }
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Number of values the set was sized for, at least the expected size it was created with.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Off-heap memory taken by the table.
+     */
+    public long getMemoryBytes() {
+        return capacity * Long.BYTES;
+    }
+
+    private long indexOf(long value) {
+        // IDs differ mostly in their low bits, the finalizer of MurmurHash3 spreads them over all
+        // bits before mapping them onto the table without a power-of-two size
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return Math.unsignedMultiplyHigh(hash, capacity);
+    }
+}
@@ -0,0 +1,107 @@
+package io.gendora.load;
+
+import io.gendora.services.IdLayout;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdVerifierTest {
+
+    private static final IdLayout LAYOUT = IdLayout.DEFAULT;
+
+    private static long id(long timestampDelta, long slot, long sequence) {
+        return timestampDelta << LAYOUT.timestampShift() | slot << LAYOUT.machineIdShift() | sequence;
+    }
+
+    @Test
+    void shouldCountDuplicatesAcrossWorkers() {
+        // Given
+        IdVerifier verifier = new IdVerifier(LAYOUT, 1000);
+        IdVerifier.Tracker first = verifier.newTracker();
+        IdVerifier.Tracker second = verifier.newTracker();
+
+        // When
+        first.verify(new long[]{id(1, 1, 0), id(1, 1, 1)});
+        second.verify(new long[]{id(1, 1, 1), id(1, 2, 0)});
+
+        // Then
+        assertEquals(3, verifier.getUniqueCount());
+        assertEquals(1, verifier.getDuplicateCount());
+        assertEquals(0, verifier.getOutOfOrderCount());
+        assertEquals(1, verifier.getSamples().size());
+    }
+
+    @Test
+    void shouldCountIdsOfASlotGoingBackwardsWithinAWorker() {
+        // Given
+        IdVerifier verifier = new IdVerifier(LAYOUT, 1000);
+        IdVerifier.Tracker tracker = verifier.newTracker();
+        tracker.verify(new long[]{id(5, 1, 0), id(5, 2, 0)});
+
+        // When slot 1 goes back in time, slot 2 moves on
+        tracker.verify(new long[]{id(4, 1, 0), id(6, 2, 0)});
+
+        // Then
+        assertEquals(0, verifier.getDuplicateCount());
+        assertEquals(1, verifier.getOutOfOrderCount());
+    }
+
+    @Test
+    void shouldAcceptLowerSequencesOfOtherShardsWithinAMillisecond() {
+        // Given
+        IdVerifier verifier = new IdVerifier(LAYOUT, 1000);
+        IdVerifier.Tracker tracker = verifier.newTracker();
+        long shardPrefix = 1L << (LAYOUT.sequenceBits() - 1);
+        tracker.verify(new long[]{id(5, 1, shardPrefix)});
+
+        // When the next request is served by the first shard
+        tracker.verify(new long[]{id(5, 1, 0), id(6, 1, 0)});
+
+        // Then
+        assertEquals(0, verifier.getOutOfOrderCount());
+    }
+
+    @Test
+    void shouldCountTimestampsGoingBackBeyondTheClockDrift() {
+        // Given
+        IdVerifier verifier = new IdVerifier(LAYOUT, 1000, 2);
+        IdVerifier.Tracker tracker = verifier.newTracker();
+        tracker.verify(new long[]{id(10, 1, 0)});
+
+        // When a shard that ran ahead served the first request, and one further back the last ID
+        tracker.verify(new long[]{id(8, 1, 0), id(7, 1, 0)});
+
+        // Then
+        assertEquals(1, verifier.getOutOfOrderCount());
+    }
+
+    @Test
+    void shouldNotCompareIdsOfDifferentWorkers() {
+        // Given
+        IdVerifier verifier = new IdVerifier(LAYOUT, 1000);
+        verifier.newTracker().verify(new long[]{id(5, 1, 0)});
+
+        // When an overlapping request of another worker was served first
+        verifier.newTracker().verify(new long[]{id(4, 1, 0)});
+
+        // Then
+        assertEquals(0, verifier.getOutOfOrderCount());
+    }
+
+    @Test
+    void shouldCountIdsPerSlot() {
+        // Given
+        IdVerifier verifier = new IdVerifier(LAYOUT, 1000);
+
+        // When
+        verifier.newTracker().verify(new long[]{id(1, 0, 0), id(1, 0, 1), id(1, 3, 0)});
+
+        // Then
+        long[] counts = verifier.getCountsPerSlot();
+        assertEquals(1024, counts.length);
+        assertArrayEquals(new long[]{2, 0, 0, 1}, Arrays.copyOf(counts, 4));
+    }
+}
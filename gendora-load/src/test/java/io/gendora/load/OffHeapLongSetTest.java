@@ -0,0 +1,104 @@
+package io.gendora.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapLongSetTest {
+
+    @Test
+    void shouldReportValuesAddedBefore() {
+        // Given
+        OffHeapLongSet set = new OffHeapLongSet(1000);
+
+        // When
+        boolean first = set.add(42);
+        boolean second = set.add(42);
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertTrue(set.contains(42));
+        assertFalse(set.contains(43));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void shouldKeepValuesAcrossSegments() {
+        // Given a table of several segments of 16 slots
+        OffHeapLongSet set = new OffHeapLongSet(1000, 4);
+
+        // When
+        for (long value = 1; value <= 1000; value++) {
+            assertTrue(set.add(value << 20));
+        }
+
+        // Then
+        for (long value = 1; value <= 1000; value++) {
+            assertTrue(set.contains(value << 20));
+            assertFalse(set.add(value << 20));
+        }
+        assertEquals(1000, set.size());
+    }
+
+    @Test
+    void shouldAddEachValueOnceAcrossThreads() throws Exception {
+        // Given every thread adding the same values
+        OffHeapLongSet set = new OffHeapLongSet(200_000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<Integer>> added = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            added.add(executor.submit(() -> {
+                int count = 0;
+                for (long value = 1; value <= 100_000; value++) {
+                    if (set.add(value)) {
+                        count++;
+                    }
+                }
+                return count;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : added) {
+            total += future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(100_000, total);
+        assertEquals(100_000, set.size());
+    }
+
+    @Test
+    void shouldRefuseValuesPastItsSize() {
+        // Given
+        OffHeapLongSet set = new OffHeapLongSet(100);
+        for (long value = 1; value <= set.getMaxSize(); value++) {
+            set.add(value);
+        }
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> set.add(set.getMaxSize() + 1));
+        assertFalse(set.add(1));
+    }
+
+    @Test
+    void shouldRejectZero() {
+        // Given
+        OffHeapLongSet set = new OffHeapLongSet(100);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> set.add(0));
+    }
+}
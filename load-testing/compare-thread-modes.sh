@@ -0,0 +1,108 @@
+#!/bin/bash
+
+# Runs the load test once against platform threads and once against virtual threads and
+# prints P99 latency, throughput and the peak resident memory of the API for each.
+#
+# By default the API runs in Docker Compose behind nginx and k6 drives the load. With --local,
+# the API jar runs on this host (Redis on localhost:6379) and the gendora-load module drives
+# it with WORKERS workers (default: 64) for DURATION seconds (default: 60) after WARMUP seconds
+# (default: 30). Build both first: ./gradlew :gendora-api:bootJar :gendora-load:installDist
+
+set -e
+
+mkdir -p output
+TIMESTAMP=$(date +%Y%m%d%H%M%S)
+
+LOCAL=false
+if [ "$1" = "--local" ]; then
+  LOCAL=true
+fi
+WORKERS=${WORKERS:-64}
+DURATION=${DURATION:-60}
+WARMUP=${WARMUP:-30}
+
+# Samples the resident set size (in kB) of a process once a second until killed
+sample_rss() {
+  local read_rss=$1
+  local rss_file=$2
+  : > "${rss_file}"
+  while true; do
+    ${read_rss} 2>/dev/null | awk '/VmRSS/ {print $2}' >> "${rss_file}" || true
+    sleep 1
+  done
+}
+
+run_mode_docker() {
+  local mode=$1
+  local profiles=$2
+
+  echo "Starting API with profiles '${profiles}'..."
+  (cd .. && SPRING_PROFILES_ACTIVE=${profiles} docker compose up -d --build --force-recreate --wait api nginx)
+
+  local container
+  container=$(cd .. && docker compose ps -q api | head -n 1)
+
+  # The JVM is PID 1 in the container
+  sample_rss "docker exec ${container} cat /proc/1/status" output/rss-${mode}-${TIMESTAMP}.log &
+  local sampler=$!
+
+  SUMMARY_FILE=output/summary-${mode}-${TIMESTAMP}.json k6 run load-test.js \
+    > output/load-test-output-${mode}-${TIMESTAMP}.log 2>&1 || true
+
+  kill ${sampler}
+  wait ${sampler} 2>/dev/null || true
+}
+
+run_mode_local() {
+  local mode=$1
+  local profiles=$2
+
+  echo "Starting API with profiles '${profiles}'..."
+  SPRING_PROFILES_ACTIVE=${profiles} java -jar ../gendora-api/build/libs/gendora-api.jar \
+    > output/api-${mode}-${TIMESTAMP}.log 2>&1 &
+  local api=$!
+  until curl -sf http://localhost:8080/api/actuator/health > /dev/null; do
+    sleep 1
+  done
+
+  sample_rss "cat /proc/${api}/status" output/rss-${mode}-${TIMESTAMP}.log &
+  local sampler=$!
+
+  ../gendora-load/build/install/gendora-load/bin/gendora-load --url http://localhost:8080/api \
+    --threads "${WORKERS}" --duration "${DURATION}" --warmup "${WARMUP}" --expected-ids 50000000 \
+    > output/load-test-output-${mode}-${TIMESTAMP}.log 2>&1 || true
+
+  kill ${sampler} ${api}
+  wait ${sampler} ${api} 2>/dev/null || true
+}
+
+report() {
+  local mode=$1
+  local output=output/load-test-output-${mode}-${TIMESTAMP}.log
+  local p99
+  local throughput
+  local max_rss_kb
+  if [ "${LOCAL}" = true ]; then
+    p99=$(awk '/^Latency/ {for (i = 1; i < NF; i++) if ($i == "p99") print $(i + 1)}' "${output}")
+    throughput=$(awk '/^Requests:/ {gsub(/[(,]/, ""); print $3}' "${output}")
+  else
+    local summary=output/summary-${mode}-${TIMESTAMP}.json
+    p99=$(jq '.metrics.http_req_duration.values["p(99)"]' "${summary}")
+    throughput=$(jq '.metrics.http_reqs.values.rate' "${summary}")
+  fi
+  max_rss_kb=$(sort -n output/rss-${mode}-${TIMESTAMP}.log | tail -n 1)
+  printf "%-10s %12.2f %16.2f %14s\n" "${mode}" "${p99}" "${throughput}" "$((max_rss_kb / 1024))"
+}
+
+if [ "${LOCAL}" = true ]; then
+  run_mode_local platform default
+  run_mode_local virtual virtual
+else
+  run_mode_docker platform docker
+  run_mode_docker virtual docker,virtual
+fi
+
+echo ""
+printf "%-10s %12s %16s %14s\n" "Threads" "P99 (ms)" "Throughput (/s)" "Max RSS (MB)"
+report platform
+report virtual
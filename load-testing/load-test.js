@@ -13,6 +13,7 @@ export const options = {
     { duration: "300s", target: 500 },
     { duration: "15s", target: 0 },
   ],
+  summaryTrendStats: ["avg", "min", "med", "max", "p(95)", "p(99)"],
   thresholds: {
     http_req_duration: ["p(99)<20"], // 99% of requests should be below 20ms
     http_req_failed: ["rate<0.001"], // Error rate should be less than 0.1%
@@ -65,7 +66,7 @@ export function handleSummary(data) {
   const successRate = data.metrics.checks.values.rate * 100;
   const errorRate = data.metrics.http_req_failed.values.rate * 100;
 
-  return {
+  const summary = {
     stdout: `
 === Load Test Summary ===
 Total Requests: ${totalRequests}
@@ -75,6 +76,10 @@ Average Response Time: ${data.metrics.http_req_duration.values.avg.toFixed(2)}ms
 P95 Response Time: ${data.metrics.http_req_duration.values["p(95)"].toFixed(
       2
     )}ms
+P99 Response Time: ${data.metrics.http_req_duration.values["p(99)"].toFixed(
+      2
+    )}ms
+Throughput: ${data.metrics.http_reqs.values.rate.toFixed(2)} req/s
 Max Response Time: ${data.metrics.http_req_duration.values.max.toFixed(2)}ms
 Note: Due to k6's per-VU isolation, cross-VU duplicate detection requires post-test analysis.
 === Result: ${
@@ -82,4 +87,11 @@ Note: Due to k6's per-VU isolation, cross-VU duplicate detection requires post-t
     } ===
     `,
   };
+
+  // Machine-readable summary for scripts comparing runs, e.g. compare-thread-modes.sh
+  if (__ENV.SUMMARY_FILE) {
+    summary[__ENV.SUMMARY_FILE] = JSON.stringify(data);
+  }
+
+  return summary;
 }